@@ -0,0 +1,146 @@
+package com.capstone.simulation.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+
+import com.capstone.simulation.bloomfilters.BitSlicedBloomDirectory;
+import com.capstone.simulation.bloomfilters.StandardBloomFilter;
+import com.capstone.simulation.utility.Hash;
+
+/**
+ * Compares proxy bloom filter updates and lookups under contention. The old
+ * version sets bits of a BitSet backed StandardBloomFilter per client while
+ * holding the monitor of the client, and looks a block up by probing the
+ * filters one client at a time. The new version is the BitSlicedBloomDirectory
+ * of ProxyBF: bits are set by compare and swap and findClient ANDs the slices
+ * of every client at once. Every thread runs the same mix of updates of the
+ * filters of randomly picked clients and lookups from randomly picked clients.
+ *
+ * Usage: BloomFilterContentionBenchmark [operationsPerThread]
+ */
+public class BloomFilterContentionBenchmark {
+
+	private static final int[] THREAD_COUNTS = {8, 32, 128};
+	private static final int CLIENTS = 50;
+	private static final int FILTER_SIZE = 4347; // 3 * 1000 / 0.69, as sized by the Simulator
+	private static final int HASH_FUNCTIONS_COUNT = 3;
+	private static final int UPDATE_PERCENT = 25;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws Exception {
+		int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+		System.out.println("Threads\tSynchronized BitSet (ops/ms)\tBit sliced directory (ops/ms)\tSpeedup");
+		for (int threads : THREAD_COUNTS) {
+//			First round of each is a warm up
+			double synchronizedRate = 0;
+			double directoryRate = 0;
+			for (int round = 0; round <= ROUNDS; round++) {
+				double oldRate = run(threads, operations, false);
+				double newRate = run(threads, operations, true);
+				if (round > 0) {
+					synchronizedRate += oldRate / ROUNDS;
+					directoryRate += newRate / ROUNDS;
+				}
+			}
+			System.out.println(threads + "\t" + String.format("%.1f", synchronizedRate) + "\t" + String.format("%.1f", directoryRate) + "\t" + String.format("%.2fx", directoryRate / synchronizedRate));
+		}
+	}
+
+	private static double run(final int threads, final int operations, final boolean directoryMode) throws Exception {
+		final StandardBloomFilter[] standardFilters = new StandardBloomFilter[CLIENTS];
+		final Object[] monitors = new Object[CLIENTS];
+		for (int i = 0; i < CLIENTS; i++) {
+			standardFilters[i] = new StandardBloomFilter(FILTER_SIZE);
+			monitors[i] = new Object();
+		}
+		final BitSlicedBloomDirectory directory = new BitSlicedBloomDirectory(FILTER_SIZE, CLIENTS);
+
+		final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final long seed = t;
+			workers[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Random random = new Random(seed);
+					int found = 0;
+					try {
+						barrier.await();
+					} catch (Exception e) {
+						return;
+					}
+					for (int op = 0; op < operations; op++) {
+						int client = random.nextInt(CLIENTS);
+						long pair = random.nextLong();
+						boolean update = random.nextInt(100) < UPDATE_PERCENT;
+						if (directoryMode) {
+							if (update) {
+								setDirectory(directory, client, pair);
+							} else {
+								found += directory.findClient(pair, HASH_FUNCTIONS_COUNT, 0, client);
+							}
+						} else if (update) {
+							synchronized (monitors[client]) {
+								setSynchronized(standardFilters[client], pair);
+							}
+						} else {
+							found += lookupSynchronized(standardFilters, pair, client);
+						}
+					}
+//					Keeps the lookups from being optimized away
+					if (found == 42) {
+						System.out.println();
+					}
+					try {
+						barrier.await();
+					} catch (Exception e) {
+						return;
+					}
+				}
+			});
+			workers[t].start();
+		}
+
+		barrier.await();
+		long start = System.nanoTime();
+		barrier.await();
+		long elapsed = System.nanoTime() - start;
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		return (double) threads * operations / (elapsed / 1000000.0);
+	}
+
+	private static void setDirectory(BitSlicedBloomDirectory directory, int client, long pair) {
+		for (int i = 0; i < HASH_FUNCTIONS_COUNT; i++) {
+			directory.setBit(client, Hash.probe(pair, i));
+		}
+	}
+
+	private static void setSynchronized(StandardBloomFilter filter, long pair) {
+		for (int i = 0; i < HASH_FUNCTIONS_COUNT; i++) {
+			filter.setBit(Hash.probe(pair, i));
+		}
+	}
+
+	/**
+	 * Probes the filters in client order the way lookForData did
+	 * @return the first matching client, Integer.MIN_VALUE if none matches
+	 */
+	private static int lookupSynchronized(StandardBloomFilter[] filters, long pair, int requestingClient) {
+		for (int client = 0; client < filters.length; client++) {
+			if (client == requestingClient) {
+				continue;
+			}
+			boolean match = true;
+			for (int i = 0; i < HASH_FUNCTIONS_COUNT && match; i++) {
+				match = filters[client].isBitSet(Hash.probe(pair, i));
+			}
+			if (match) {
+				return client;
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+}
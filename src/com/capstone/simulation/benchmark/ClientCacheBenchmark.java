@@ -0,0 +1,216 @@
+package com.capstone.simulation.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import com.capstone.simulation.cache.BlockCache;
+import com.capstone.simulation.cache.ReplacementPolicyFactory;
+import com.capstone.simulation.data.DataBlock;
+import com.capstone.simulation.utility.ReplacementPolicyType;
+
+/**
+ * Compares the client cache engines at cache sizes from 10 to a million
+ * blocks. Requests pick random blocks from twice the cache size, so about
+ * half of them hit. A hit looks the block up, a miss inserts it into the
+ * full cache and evicts a block.
+ *
+ * The old engine is the insertion ordered LinkedHashMap that copied its key
+ * set to find the head on every eviction. It is only run up to
+ * legacyMaxSize blocks, since every miss costs O(cacheSize).
+ *
+ * The serve columns time the lookup of a cached block a client serves to
+ * another one: the old containsKey followed by a scan of the key set for
+ * the block, against one probe of the block cache.
+ *
+ * The policy table runs the same requests through the block cache with
+ * every replacement policy, to show each one costs constant time per
+ * request. Requests are uniform, so the hit rates only differ by noise.
+ *
+ * Last, the heap retained per cached block is reported for heapBlocks
+ * blocks held by the old map and by the block cache. Run with a fixed heap
+ * (e.g. -Xms2g -Xmx2g) for stable numbers.
+ *
+ * Usage: ClientCacheBenchmark [requests] [legacyMaxSize] [heapBlocks]
+ */
+public class ClientCacheBenchmark {
+
+	private static final int[] CACHE_SIZES = {10, 100, 1000, 10000, 100000, 1000000};
+
+	private static long sink; // Keeps the served blocks from being optimized away
+
+	public static void main(String[] args) {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int legacyMaxSize = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int heapBlocks = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+
+		System.out.println("Cache size\tFIFO copy ns/op\tFIFO copy bytes/op\tLRU ns/op\tLRU bytes/op\tHit rate\tScan serve ns/op\tProbe serve ns/op");
+		for (int cacheSize : CACHE_SIZES) {
+			String legacy = "-\t-";
+			String scanServe = "-";
+			if (cacheSize <= legacyMaxSize) {
+//				Fewer requests, the old engine is O(cacheSize) per miss
+				legacy = runLegacy(cacheSize, Math.max(1000, requests / cacheSize));
+				legacy = runLegacy(cacheSize, Math.max(1000, requests / cacheSize));
+				scanServe = runScanServe(cacheSize, Math.max(1000, requests / cacheSize));
+				scanServe = runScanServe(cacheSize, Math.max(1000, requests / cacheSize));
+			}
+			String lru = runPolicy(ReplacementPolicyType.LRU, cacheSize, requests);
+			lru = runPolicy(ReplacementPolicyType.LRU, cacheSize, requests);
+			String probeServe = runProbeServe(cacheSize, requests);
+			probeServe = runProbeServe(cacheSize, requests);
+			System.out.println(cacheSize + "\t" + legacy + "\t" + lru + "\t" + scanServe + "\t" + probeServe);
+		}
+
+		System.out.println();
+		System.out.println("Policy\tCache size\tns/op\tbytes/op\tHit rate");
+		for (ReplacementPolicyType type : ReplacementPolicyType.values()) {
+			for (int cacheSize : new int[] {1000, 1000000}) {
+				String policy = runPolicy(type, cacheSize, requests);
+				policy = runPolicy(type, cacheSize, requests);
+				System.out.println(type + "\t" + cacheSize + "\t" + policy);
+			}
+		}
+
+		System.out.println();
+		System.out.println("Cache\tHeap bytes per cached block");
+		long before = usedHeap();
+		LinkedHashMap<DataBlock, Integer> map = new LinkedHashMap<DataBlock, Integer>(heapBlocks);
+		for (int data = 0; data < heapBlocks; data++) {
+			map.put(new DataBlock(data), data);
+		}
+		System.out.println("LinkedHashMap<DataBlock, Integer>\t" + String.format("%.1f", (double) (usedHeap() - before) / heapBlocks));
+		sink += map.size();
+		map = null;
+
+		before = usedHeap();
+		BlockCache cache = new BlockCache(heapBlocks);
+		for (int data = 0; data < heapBlocks; data++) {
+			cache.put(new DataBlock(data));
+		}
+		System.out.println("BlockCache\t" + String.format("%.1f", (double) (usedHeap() - before) / heapBlocks));
+		sink += cache.size();
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static String runPolicy(ReplacementPolicyType type, int cacheSize, int requests) {
+		Random random = new Random(42);
+		BlockCache cache = new BlockCache(cacheSize, ReplacementPolicyFactory.createPolicy(type));
+		for (int data = 0; data < cacheSize; data++) {
+			cache.put(new DataBlock(data));
+		}
+		DataBlock[] blocks = blocks(2 * cacheSize);
+
+		long hits = 0;
+		long allocationStart = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			DataBlock block = blocks[random.nextInt(blocks.length)];
+			if (cache.touch(block.getData())) {
+				hits++;
+			} else {
+				cache.put(block);
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = allocatedBytes() - allocationStart;
+		return format(elapsed, allocated, requests) + "\t" + String.format("%.3f", (double) hits / requests);
+	}
+
+	private static String runLegacy(int cacheSize, int requests) {
+		Random random = new Random(42);
+		LinkedHashMap<DataBlock, Integer> cache = new LinkedHashMap<DataBlock, Integer>(cacheSize);
+		for (int data = 0; data < cacheSize; data++) {
+			cache.put(new DataBlock(data), data);
+		}
+		DataBlock[] blocks = blocks(2 * cacheSize);
+
+		long allocationStart = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			DataBlock block = blocks[random.nextInt(blocks.length)];
+			if (!cache.containsKey(block)) {
+				DataBlock[] keys = new DataBlock[cache.size()];
+				cache.keySet().toArray(keys);
+				cache.remove(keys[0]);
+				cache.put(block, block.getData());
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		return format(elapsed, allocatedBytes() - allocationStart, requests);
+	}
+
+	private static String runScanServe(int cacheSize, int requests) {
+		Random random = new Random(42);
+		LinkedHashMap<DataBlock, Integer> cache = new LinkedHashMap<DataBlock, Integer>(cacheSize);
+		DataBlock[] blocks = blocks(cacheSize);
+		for (DataBlock block : blocks) {
+			cache.put(block, block.getData());
+		}
+
+		long served = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			int data = random.nextInt(cacheSize);
+			if (cache.containsKey(blocks[data])) {
+				for (DataBlock block : cache.keySet()) {
+					if (block.getData() == data) {
+						served += block.getAccessCount() + 1;
+						break;
+					}
+				}
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		sink += served;
+		return String.format("%.1f", (double) elapsed / requests);
+	}
+
+	private static String runProbeServe(int cacheSize, int requests) {
+		Random random = new Random(42);
+		BlockCache cache = new BlockCache(cacheSize);
+		for (int data = 0; data < cacheSize; data++) {
+			cache.put(new DataBlock(data));
+		}
+
+		long served = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			int slot = cache.slotOf(random.nextInt(cacheSize));
+			if (slot != BlockCache.NONE) {
+				served += cache.getAccessCount(slot) + 1;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		sink += served;
+		return String.format("%.1f", (double) elapsed / requests);
+	}
+
+	private static DataBlock[] blocks(int count) {
+		DataBlock[] blocks = new DataBlock[count];
+		for (int data = 0; data < count; data++) {
+			blocks[data] = new DataBlock(data);
+		}
+		return blocks;
+	}
+
+	private static String format(long elapsed, long allocated, int requests) {
+		return String.format("%.1f", (double) elapsed / requests) + "\t" + String.format("%.1f", (double) allocated / requests);
+	}
+
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+}
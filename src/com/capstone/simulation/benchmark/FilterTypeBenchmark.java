@@ -0,0 +1,137 @@
+package com.capstone.simulation.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import com.capstone.simulation.bloomfilters.BloomFilter;
+import com.capstone.simulation.client.Client;
+import com.capstone.simulation.client.ClientGF;
+import com.capstone.simulation.metrics.MetricsRegistry;
+import com.capstone.simulation.proxy.Proxy;
+import com.capstone.simulation.proxy.ProxyFactory;
+import com.capstone.simulation.utility.BloomFilterType;
+
+/**
+ * Compares the proxy filter types head to head. Every client caches random
+ * blocks, then the caches churn (evict the oldest block, cache a new one) so
+ * filters that can't delete drift. Lookups then walk every candidate client
+ * of a random block the way receiveDataRequest resumes after a miss.
+ *
+ * Reports the lookup cost per lookForData call, the update cost per cache
+ * insert or eviction during the churn, the filter bits per cached block, the false forward rate (forwards to a client that doesn't hold the
+ * block) and the missed rate (lookups that found no holder although one
+ * exists).
+ *
+ * Usage: FilterTypeBenchmark [clients] [cacheSize] [diskSize] [churn] [lookups]
+ */
+public class FilterTypeBenchmark {
+
+	private static final int HASH_FUNCTIONS_COUNT = 3;
+	private static final float LOG_2 = 0.69f;
+
+	public static void main(String[] args) {
+		int numberOfClients = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int cacheSize = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int diskSize = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int churn = args.length > 3 ? Integer.parseInt(args[3]) : 20000;
+		int lookups = args.length > 4 ? Integer.parseInt(args[4]) : 200000;
+
+		System.out.println("Type\tLookup ns/op\tUpdate ns/op\tBits per cached block\tFalse forward rate\tMissed rate");
+		for (BloomFilterType type : BloomFilterType.values()) {
+			run(type, numberOfClients, cacheSize, diskSize, churn, lookups);
+		}
+	}
+
+	private static void run(BloomFilterType type, int numberOfClients, int cacheSize, int diskSize, int churn, int lookups) {
+		Random random = new Random(42);
+		Proxy proxy = ProxyFactory.buildProxy(type);
+		Client[] clients = new Client[numberOfClients];
+		for (int i = 0; i < numberOfClients; i++) {
+			clients[i] = new ClientGF(i + 1, cacheSize, null);
+			clients[i].setProxy(proxy);
+		}
+		proxy.setNumberOfClients(numberOfClients);
+		proxy.setDiskSize(diskSize);
+		proxy.setMetrics(new MetricsRegistry(numberOfClients));
+		proxy.setClients(clients);
+		proxy.setBloomFilterSize((int) ((float) (HASH_FUNCTIONS_COUNT * diskSize) / LOG_2));
+		proxy.setBloomFilters();
+
+		boolean[][] cached = new boolean[numberOfClients][diskSize];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		ArrayDeque<Integer>[] caches = new ArrayDeque[numberOfClients];
+		for (int i = 0; i < numberOfClients; i++) {
+			caches[i] = new ArrayDeque<Integer>();
+			while (caches[i].size() < cacheSize) {
+				insert(proxy, cached, caches, i, random.nextInt(diskSize));
+			}
+		}
+		long updates = 0;
+		long updateStart = System.nanoTime();
+		for (int step = 0; step < churn; step++) {
+			int client = random.nextInt(numberOfClients);
+			int evicted = caches[client].poll();
+			cached[client][evicted] = false;
+			proxy.removeDataFromBloomFilter(client + 1, evicted);
+			while (caches[client].size() < cacheSize) {
+				insert(proxy, cached, caches, client, random.nextInt(diskSize));
+			}
+			updates += 2;
+		}
+		long updateElapsed = System.nanoTime() - updateStart;
+
+		long calls = 0;
+		long forwards = 0;
+		long falseForwards = 0;
+		long missed = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < lookups; i++) {
+			int requester = random.nextInt(numberOfClients);
+			int data = random.nextInt(diskSize);
+			boolean found = false;
+			int index = proxy.lookForData(requester, data, 0);
+			calls++;
+			while (index != Integer.MIN_VALUE && !found) {
+				forwards++;
+				if (cached[index][data]) {
+					found = true;
+				} else {
+					falseForwards++;
+					index = proxy.lookForData(requester, data, index + 1);
+					calls++;
+				}
+			}
+			if (!found && isCachedByOther(cached, requester, data)) {
+				missed++;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		long bits = 0;
+		for (BloomFilter filter : proxy.getBloomFilters()) {
+			bits += filter.getSizeInBits();
+		}
+		System.out.println(type + "\t" + String.format("%.1f", (double) elapsed / calls)
+				+ "\t" + String.format("%.1f", updates == 0 ? 0 : (double) updateElapsed / updates)
+				+ "\t" + String.format("%.1f", (double) bits / ((long) numberOfClients * cacheSize))
+				+ "\t" + String.format("%.4f", forwards == 0 ? 0 : (double) falseForwards / forwards)
+				+ "\t" + String.format("%.4f", (double) missed / lookups));
+	}
+
+	private static void insert(Proxy proxy, boolean[][] cached, ArrayDeque<Integer>[] caches, int client, int data) {
+		if (!cached[client][data]) {
+			cached[client][data] = true;
+			caches[client].add(data);
+			proxy.addDataToBloomFilter(client + 1, data, 0);
+		}
+	}
+
+	private static boolean isCachedByOther(boolean[][] cached, int requester, int data) {
+		for (int i = 0; i < cached.length; i++) {
+			if (i != requester && cached[i][data]) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,174 @@
+package com.capstone.simulation.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CyclicBarrier;
+
+import com.capstone.simulation.utility.Hash;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Compares the hash value generation of the proxy. The previous version was
+ * synchronized on the Hash singleton and allocated a ByteBuffer and the
+ * result array on every call, recomputing both hashes for every hash value.
+ * The new versions fill a buffer owned by the caller or return the packed
+ * hash pair, without lock or allocation.
+ *
+ * Reports ns/op and bytes/op on one thread, then ops/ms with several threads.
+ *
+ * Usage: HashBenchmark [iterations] [threads]
+ */
+public class HashBenchmark {
+
+	private static final int HASH_FUNCTIONS_COUNT = 3;
+	private static final HashFunction murmur = Hashing.murmur3_32();
+	private static final Object lock = new Object();
+
+	public static void main(String[] args) throws Exception {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		Hash.getInstance().setHashFunctionsCount(HASH_FUNCTIONS_COUNT);
+
+		Step[] steps = {new LegacyStep(), new BufferStep(), new PairStep()};
+		System.out.println("Version\tns/op\tbytes/op\tops/ms (" + threads + " threads)");
+		for (Step step : steps) {
+			report(step, iterations);
+			System.out.println("\t" + String.format("%.1f", runThreads(step, threads, iterations)));
+		}
+	}
+
+	private static abstract class Step {
+		private final String name;
+		private int sink;
+
+		Step(String name) {
+			this.name = name;
+		}
+
+		abstract Step copy();
+
+		abstract int run(int data);
+	}
+
+	private static class LegacyStep extends Step {
+		LegacyStep() {
+			super("Previous generateHashValues");
+		}
+
+		Step copy() {
+			return new LegacyStep();
+		}
+
+		int run(int data) {
+			return legacyHashValues(data)[HASH_FUNCTIONS_COUNT - 1];
+		}
+	}
+
+	private static class BufferStep extends Step {
+		private final int[] hashValues = new int[HASH_FUNCTIONS_COUNT];
+
+		BufferStep() {
+			super("generateHashValues into buffer");
+		}
+
+		Step copy() {
+			return new BufferStep();
+		}
+
+		int run(int data) {
+			Hash.getInstance().generateHashValues(data, hashValues);
+			return hashValues[HASH_FUNCTIONS_COUNT - 1];
+		}
+	}
+
+	private static class PairStep extends Step {
+		PairStep() {
+			super("hashPair");
+		}
+
+		Step copy() {
+			return new PairStep();
+		}
+
+		int run(int data) {
+			long pair = Hash.getInstance().hashPair(data);
+			int last = 0;
+			for (int i = 0; i < HASH_FUNCTIONS_COUNT; i++) {
+				last = Hash.probe(pair, i);
+			}
+			return last;
+		}
+	}
+
+	private static void report(Step step, int iterations) {
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+//		Warm up so the measured loop runs compiled code
+		for (int i = 0; i < iterations; i++) {
+			step.sink += step.run(i);
+		}
+
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			step.sink += step.run(i);
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		System.out.print(step.name + "\t" + String.format("%.1f", (double) elapsed / iterations) + "\t" + String.format("%.2f", (double) allocated / iterations));
+	}
+
+	private static double runThreads(Step step, int threads, final int iterations) throws Exception {
+		final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final Step threadStep = step.copy();
+			final int offset = t * iterations;
+			workers[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						barrier.await();
+					} catch (Exception e) {
+						return;
+					}
+					for (int i = 0; i < iterations; i++) {
+						threadStep.sink += threadStep.run(offset + i);
+					}
+					try {
+						barrier.await();
+					} catch (Exception e) {
+						return;
+					}
+				}
+			});
+			workers[t].start();
+		}
+
+		barrier.await();
+		long start = System.nanoTime();
+		barrier.await();
+		long elapsed = System.nanoTime() - start;
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		return (double) threads * iterations / (elapsed / 1000000.0);
+	}
+
+	/**
+	 * Hash.generateHashValues as it was before, synchronized on the singleton
+	 */
+	private static int[] legacyHashValues(int data) {
+		synchronized (lock) {
+			int[] hashValues = new int[HASH_FUNCTIONS_COUNT];
+			byte[] dataBytes = ByteBuffer.allocate(4).putInt(data).array();
+			for (int i = 0; i < HASH_FUNCTIONS_COUNT; i++) {
+				hashValues[i] = Hash.jenkins32(dataBytes) + i * murmur.hashInt(data).asInt();
+			}
+			return hashValues;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.capstone.simulation.benchmark;
+
+import java.util.Random;
+
+import com.capstone.simulation.bloomfilters.StandardBloomFilter;
+import com.capstone.simulation.utility.Hash;
+import com.capstone.simulation.utility.HashFamily;
+
+/**
+ * Compares the hash families on the integer data blocks of the simulator.
+ * For every family it reports the time to generate the k probe positions of
+ * a data block, and the false positive rate measured on a bloom filter
+ * holding a client cache: all the blocks of the disk that are not cached are
+ * looked up. Caches hold either random blocks, or every tenth block as the
+ * k sequence allocations do, which is the harder case for weak hashes.
+ *
+ * Filters are sized for the target false positive rate the way the
+ * Simulator does with BloomFilterSizing=FalsePositiveRate.
+ *
+ * Usage: HashFamilyBenchmark [diskSize] [cacheSize] [targetFalsePositiveRate] [trials]
+ */
+public class HashFamilyBenchmark {
+
+	private static final int STRIDE = 10;
+
+	public static void main(String[] args) {
+		int diskSize = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int cacheSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		double target = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+		int trials = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+		double ln2 = Math.log(2);
+		int size = (int) Math.ceil(-cacheSize * Math.log(target) / (ln2 * ln2));
+		int hashCount = Math.max(1, (int) Math.round((double) size / cacheSize * ln2));
+		Hash hash = Hash.getInstance();
+		hash.setHashFunctionsCount(hashCount);
+
+		System.out.println("Filter size: " + size + " Hash functions: " + hashCount + " Target false positive rate: " + target);
+		System.out.println("Family\tns per " + hashCount + " probes\tRandom blocks FPR\tStrided blocks FPR");
+		for (HashFamily family : HashFamily.values()) {
+			hash.setHashFamily(family);
+			double nanos = probeTime(hash, diskSize, size);
+			double randomRate = 0;
+			double stridedRate = 0;
+			for (int trial = 0; trial < trials; trial++) {
+				randomRate += falsePositiveRate(hash, diskSize, cacheSize, size, new Random(trial), false) / trials;
+				stridedRate += falsePositiveRate(hash, diskSize, cacheSize, size, new Random(trial), true) / trials;
+			}
+			System.out.println(family + "\t" + String.format("%.2f", nanos) + "\t" + String.format("%.5f", randomRate) + "\t" + String.format("%.5f", stridedRate));
+		}
+		hash.setHashFamily(HashFamily.JenkinsMurmur);
+	}
+
+	private static double probeTime(Hash hash, int diskSize, int size) {
+		int hashCount = hash.getHashFunctionsCount();
+		int rounds = Math.max(1, 20000000 / diskSize);
+		long sink = 0;
+		long elapsed = 0;
+//		First round is a warm up
+		for (int round = 0; round <= rounds; round++) {
+			long start = System.nanoTime();
+			for (int data = 0; data < diskSize; data++) {
+				long pair = hash.hashPair(data);
+				for (int i = 0; i < hashCount; i++) {
+					sink += Math.floorMod(Hash.probe(pair, i), size);
+				}
+			}
+			if (round > 0) {
+				elapsed += System.nanoTime() - start;
+			}
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+		return (double) elapsed / ((long) rounds * diskSize);
+	}
+
+	private static double falsePositiveRate(Hash hash, int diskSize, int cacheSize, int size, Random random, boolean strided) {
+		StandardBloomFilter filter = new StandardBloomFilter(size);
+		boolean[] cached = new boolean[diskSize];
+		int hashCount = hash.getHashFunctionsCount();
+		int count = 0;
+		int offset = random.nextInt(STRIDE);
+		while (count < cacheSize) {
+			int data = strided ? (random.nextInt(diskSize / STRIDE) * STRIDE + offset) : random.nextInt(diskSize);
+			if (!cached[data]) {
+				cached[data] = true;
+				count++;
+				long pair = hash.hashPair(data);
+				for (int i = 0; i < hashCount; i++) {
+					filter.setBit(Hash.probe(pair, i));
+				}
+			}
+		}
+
+		int lookups = 0;
+		int falsePositives = 0;
+		for (int data = 0; data < diskSize; data++) {
+			if (cached[data]) {
+				continue;
+			}
+			lookups++;
+			long pair = hash.hashPair(data);
+			boolean match = true;
+			for (int i = 0; i < hashCount && match; i++) {
+				match = filter.isBitSet(Hash.probe(pair, i));
+			}
+			if (match) {
+				falsePositives++;
+			}
+		}
+		return (double) falsePositives / lookups;
+	}
+}
@@ -0,0 +1,100 @@
+package com.capstone.simulation.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.capstone.simulation.bloomfilters.IABloomFilter;
+
+/**
+ * Reports the time and the bytes allocated per call of the IABloomFilter
+ * decay step, next to the previous implementation that built an ArrayList of
+ * boxed indexes with a new Random on every insert. The full updateBF is
+ * reported as well, since it also hashes the data block.
+ *
+ * Usage: IBFDecayBenchmark [iterations] [decayInterval]
+ */
+public class IBFDecayBenchmark {
+
+	private static final int FILTER_SIZE = 4347; // 3 * 1000 / 0.69, as sized by the Simulator
+	private static final int P = 10;
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int decayInterval = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+		final int[] cells = new int[FILTER_SIZE];
+		final IABloomFilter filter = new IABloomFilter(FILTER_SIZE, 1);
+		final IABloomFilter bulkFilter = new IABloomFilter(FILTER_SIZE, 1);
+		bulkFilter.setDecayInterval(decayInterval);
+		final IABloomFilter updatedFilter = new IABloomFilter(FILTER_SIZE, 1);
+
+		System.out.println("Step\tns/op\tbytes/op");
+		report("Previous decay", iterations, new Step() {
+			public void run(int i) {
+				legacyDecay(cells);
+			}
+		});
+		report("Decay", iterations, new Step() {
+			public void run(int i) {
+				filter.decay();
+			}
+		});
+		report("Bulk decay (interval " + decayInterval + ")", iterations, new Step() {
+			public void run(int i) {
+				bulkFilter.decay();
+			}
+		});
+		report("updateBF", iterations, new Step() {
+			public void run(int i) {
+				updatedFilter.updateBF(i, i & 7);
+			}
+		});
+	}
+
+	private interface Step {
+		void run(int i);
+	}
+
+	private static void report(String name, int iterations, Step step) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+//		Warm up so the measured loop runs compiled code
+		for (int i = 0; i < iterations; i++) {
+			step.run(i);
+		}
+
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			step.run(i);
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		System.out.println(name + "\t" + String.format("%.1f", (double) elapsed / iterations) + "\t" + String.format("%.2f", (double) allocated / iterations));
+	}
+
+	/**
+	 * Decay step as it was done before in IABloomFilter.updateBF
+	 */
+	private static void legacyDecay(int[] array) {
+		List<Integer> pIndexes = new ArrayList<Integer>();
+		Random rand = new Random();
+
+		while (pIndexes.size() != P) {
+			int index = rand.nextInt(array.length);
+			if(!pIndexes.contains(index)) {
+				pIndexes.add(index);
+			}
+		}
+
+		for(int index : pIndexes) {
+			if(array[index] >= 1) {
+				array[index] -= 1;
+			}
+		}
+	}
+}
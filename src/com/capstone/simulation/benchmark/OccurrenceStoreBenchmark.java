@@ -0,0 +1,74 @@
+package com.capstone.simulation.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.capstone.simulation.proxy.ArrayOccurrenceStore;
+import com.capstone.simulation.proxy.HashOccurrenceStore;
+import com.capstone.simulation.proxy.OccurrenceStore;
+
+/**
+ * Reports the heap retained by the occurrence counts of a million data
+ * blocks, and the time per increment, for the boxed ConcurrentHashMap the
+ * singlet map used before and the primitive occurrence stores.
+ *
+ * Run with a fixed heap (e.g. -Xms1g -Xmx1g) for stable numbers.
+ *
+ * Usage: OccurrenceStoreBenchmark [blocks] [copiesPerBlock]
+ */
+public class OccurrenceStoreBenchmark {
+
+	public static void main(String[] args) {
+		int blocks = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int copies = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		System.out.println("Store\tHeap bytes per block\tHeap MB per million blocks\tns per increment\tMB saved per million blocks");
+		long mapBytes = 0;
+		for (int kind = 0; kind < 3; kind++) {
+			long before = usedHeap();
+			long start = System.nanoTime();
+			Object store;
+			String name;
+			if (kind == 0) {
+				ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<Integer, Integer>();
+				for (int copy = 0; copy < copies; copy++) {
+					for (int data = 0; data < blocks; data++) {
+						map.merge(data, 1, Integer::sum);
+					}
+				}
+				store = map;
+				name = "ConcurrentHashMap<Integer, Integer>";
+			} else {
+				OccurrenceStore occurrences = kind == 1 ? new ArrayOccurrenceStore(blocks) : new HashOccurrenceStore(blocks);
+				for (int copy = 0; copy < copies; copy++) {
+					for (int data = 0; data < blocks; data++) {
+						occurrences.increment(data);
+					}
+				}
+				store = occurrences;
+				name = occurrences.getClass().getSimpleName();
+			}
+			long elapsed = System.nanoTime() - start;
+			long bytes = usedHeap() - before;
+			if (kind == 0) {
+				mapBytes = bytes;
+			}
+
+			System.out.println(name + "\t" + String.format("%.1f", (double) bytes / blocks)
+					+ "\t" + String.format("%.1f", (double) bytes / blocks * 1000000 / (1 << 20))
+					+ "\t" + String.format("%.1f", (double) elapsed / ((long) blocks * copies))
+					+ "\t" + String.format("%.1f", (double) (mapBytes - bytes) / blocks * 1000000 / (1 << 20)));
+//			Keep the store reachable until it is measured
+			if (store.hashCode() == 42) {
+				System.out.println();
+			}
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
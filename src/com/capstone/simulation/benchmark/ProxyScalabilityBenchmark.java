@@ -0,0 +1,113 @@
+package com.capstone.simulation.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+
+import com.capstone.simulation.client.Client;
+import com.capstone.simulation.client.ClientGF;
+import com.capstone.simulation.metrics.MetricsRegistry;
+import com.capstone.simulation.proxy.Proxy;
+import com.capstone.simulation.proxy.ProxyFactory;
+import com.capstone.simulation.utility.BloomFilterType;
+
+/**
+ * Measures how request routing scales with the number of client threads.
+ * Every client runs the greedy forwarding algorithm over its own random
+ * trace, as in the Simulator, and the throughput is reported in requests per
+ * ms. The serialized column runs every request under one shared monitor, the
+ * way the synchronized receiveDataRequest of the proxy did before.
+ *
+ * Usage: ProxyScalabilityBenchmark [requestsPerClient] [cacheSize] [diskSize]
+ */
+public class ProxyScalabilityBenchmark {
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+	private static final int HASH_FUNCTIONS_COUNT = 3;
+	private static final float LOG_2 = 0.69f;
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int cacheSize = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int diskSize = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+
+		System.out.println("Threads\tSerialized (requests/ms)\tConcurrent (requests/ms)\tSpeedup");
+		for (int threads : THREAD_COUNTS) {
+//			First round of each is a warm up
+			double serializedRate = 0;
+			double concurrentRate = 0;
+			for (int round = 0; round <= ROUNDS; round++) {
+				double oldRate = run(threads, requests, cacheSize, diskSize, true);
+				double newRate = run(threads, requests, cacheSize, diskSize, false);
+				if (round > 0) {
+					serializedRate += oldRate / ROUNDS;
+					concurrentRate += newRate / ROUNDS;
+				}
+			}
+			System.out.println(threads + "\t" + String.format("%.1f", serializedRate) + "\t" + String.format("%.1f", concurrentRate) + "\t" + String.format("%.2fx", concurrentRate / serializedRate));
+		}
+	}
+
+	private static double run(int threads, int requests, int cacheSize, int diskSize, final boolean serialized) throws Exception {
+		final Object monitor = new Object();
+		CyclicBarrier barrier = new CyclicBarrier(threads);
+		Random random = new Random(threads);
+
+		Proxy proxy = ProxyFactory.buildProxy(BloomFilterType.Standard);
+		proxy.setNumberOfClients(threads);
+		Client[] clients = new Client[threads];
+		for (int i = 0; i < threads; i++) {
+			clients[i] = new ClientGF(i + 1, cacheSize, barrier) {
+				@Override
+				public void sendDataRequest(int data) {
+					if (serialized) {
+						synchronized (monitor) {
+							super.sendDataRequest(data);
+						}
+					} else {
+						super.sendDataRequest(data);
+					}
+				}
+			};
+			clients[i].setProxy(proxy);
+			clients[i].setBloomFilterType(BloomFilterType.Standard);
+		}
+		proxy.setMetrics(new MetricsRegistry(threads));
+		proxy.setClients(clients);
+		proxy.setDiskSize(diskSize);
+		proxy.setSingletMap();
+		proxy.setBloomFilterSize((int) ((float) (HASH_FUNCTIONS_COUNT * diskSize) / LOG_2));
+		proxy.setBloomFilters();
+
+		for (int i = 0; i < threads; i++) {
+			Set<Integer> cacheData = new HashSet<Integer>();
+			while (cacheData.size() < cacheSize) {
+				cacheData.add(random.nextInt(diskSize));
+			}
+			List<Integer> trace = new ArrayList<Integer>(requests);
+			for (int r = 0; r < requests; r++) {
+				trace.add(random.nextInt(diskSize));
+			}
+			clients[i].addData(new ArrayList<Integer>(cacheData));
+			clients[i].setRequests(trace);
+			clients[i].setClients(clients);
+			clients[i].updateAllCacheToProxy();
+		}
+
+		Thread[] clientThreads = new Thread[threads];
+		long start = System.nanoTime();
+		for (int i = 0; i < threads; i++) {
+			clientThreads[i] = new Thread(clients[i]);
+			clientThreads[i].start();
+		}
+		for (int i = 0; i < threads; i++) {
+			clientThreads[i].join();
+		}
+		long elapsed = System.nanoTime() - start;
+		return (double) threads * requests / (elapsed / 1000000.0);
+	}
+}
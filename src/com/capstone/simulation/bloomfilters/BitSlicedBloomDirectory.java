@@ -0,0 +1,269 @@
+package com.capstone.simulation.bloomfilters;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.capstone.simulation.utility.Hash;
+
+/**
+ * This class represents the bloom filters of all the clients stored in a
+ * transposed (bit sliced) layout. For every bit position of the filters a
+ * bitmap of clients is kept, so that bit i of client c is bit c of slice i.
+ *
+ * A lookup ANDs the k slices of the hashed positions and gets every client
+ * that may hold the data at once, instead of probing k bits in every filter.
+ */
+public class BitSlicedBloomDirectory implements BloomFilter {
+
+	private static final int WORD_SHIFT = 6;
+	private static final int WORD_MASK = 63;
+
+	private int size;
+	private int numberOfClients;
+	private int wordsPerSlice;
+	private AtomicLongArray slices;
+
+	/**
+	 * Constructor
+	 * @param size the size of each client bloom filter
+	 * @param numberOfClients number of client filters held by the directory
+	 */
+	public BitSlicedBloomDirectory(int size, int numberOfClients) {
+		this.size = size;
+		this.numberOfClients = numberOfClients;
+		this.wordsPerSlice = (numberOfClients + WORD_MASK) >>> WORD_SHIFT;
+		this.slices = new AtomicLongArray(size * wordsPerSlice);
+	}
+
+	/**
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the numberOfClients
+	 */
+	public int getNumberOfClients() {
+		return numberOfClients;
+	}
+
+	/**
+	 * @return the bits of all the client filters, without the padding of the
+	 *         slices to whole words
+	 */
+	public long getSizeInBits() {
+		return (long) size * numberOfClients;
+	}
+
+	/**
+	 * @return the number of bits set in all the client filters
+	 */
+	public long getSetBits() {
+		long setBits = 0;
+		for (int i = 0; i < slices.length(); i++) {
+			setBits += Long.bitCount(slices.get(i));
+		}
+		return setBits;
+	}
+
+	/**
+	 * @return a directory with the same bits that is updated independently
+	 */
+	public BitSlicedBloomDirectory copy() {
+		BitSlicedBloomDirectory copy = new BitSlicedBloomDirectory(0, numberOfClients);
+		copy.size = size;
+		copy.slices = copyOf(slices);
+		return copy;
+	}
+
+	/**
+	 * Copies the words of an atomic array, for filters forked from a warmed
+	 * up experiment
+	 * @param array
+	 * @return
+	 */
+	public static AtomicLongArray copyOf(AtomicLongArray array) {
+		long[] words = new long[array.length()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = array.get(i);
+		}
+		return new AtomicLongArray(words);
+	}
+
+	/**
+	 * Sets the bit at position in the filter of the client
+	 * @param clientIndex index of the client (0 based)
+	 * @param position hash value, reduced to the filter size
+	 */
+	public void setBit(int clientIndex, int position) {
+		int word = wordIndex(clientIndex, position);
+		long mask = 1L << (clientIndex & WORD_MASK);
+		long current = slices.get(word);
+		while ((current & mask) == 0 && !slices.compareAndSet(word, current, current | mask)) {
+			current = slices.get(word);
+		}
+	}
+
+	/**
+	 * Clears the bit at position in the filter of the client
+	 * @param clientIndex index of the client (0 based)
+	 * @param position hash value, reduced to the filter size
+	 */
+	public void clearBit(int clientIndex, int position) {
+		int word = wordIndex(clientIndex, position);
+		long mask = 1L << (clientIndex & WORD_MASK);
+		long current = slices.get(word);
+		while ((current & mask) != 0 && !slices.compareAndSet(word, current, current & ~mask)) {
+			current = slices.get(word);
+		}
+	}
+
+	public boolean isBitSet(int clientIndex, int position) {
+		return (slices.get(wordIndex(clientIndex, position)) & (1L << (clientIndex & WORD_MASK))) != 0;
+	}
+
+	/**
+	 * Finds the first client, starting from fromClientId, whose filter has all
+	 * the hash value positions set. The requesting client is skipped.
+	 *
+	 * @param hashPair packed hash values of the data, see Hash.hashPair
+	 * @param hashCount number of hash values
+	 * @param fromClientId index of the first client to consider
+	 * @param excludedClientId index of the requesting client
+	 * @return client index if data may be found. Else returns Integer.MIN_VALUE
+	 */
+	public int findClient(long hashPair, int hashCount, int fromClientId, int excludedClientId) {
+		if (fromClientId < 0) {
+			fromClientId = 0;
+		}
+		for (int word = fromClientId >>> WORD_SHIFT; word < wordsPerSlice; word++) {
+			long candidates = -1L;
+			for (int j = 0; j < hashCount && candidates != 0; j++) {
+				candidates &= slices.get(Math.floorMod(Hash.probe(hashPair, j), size) * wordsPerSlice + word);
+			}
+			if (word == (fromClientId >>> WORD_SHIFT)) {
+				candidates &= -1L << (fromClientId & WORD_MASK);
+			}
+			if (word == (excludedClientId >>> WORD_SHIFT)) {
+				candidates &= ~(1L << (excludedClientId & WORD_MASK));
+			}
+			if (candidates != 0) {
+				return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(candidates);
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Collects every client whose filter has all the hash value positions
+	 * set, in client order, in one pass over the directory. The requesting
+	 * client is skipped.
+	 *
+	 * @param hashPair packed hash values of the data, see Hash.hashPair
+	 * @param hashCount number of hash values
+	 * @param excludedClientId index of the requesting client
+	 * @param matches filled with the matching client indexes, at least
+	 *            numberOfClients long
+	 * @return the number of matching clients
+	 */
+	public int findClients(long hashPair, int hashCount, int excludedClientId, int[] matches) {
+		int count = 0;
+		for (int word = 0; word < wordsPerSlice; word++) {
+			long candidates = -1L;
+			for (int j = 0; j < hashCount && candidates != 0; j++) {
+				candidates &= slices.get(Math.floorMod(Hash.probe(hashPair, j), size) * wordsPerSlice + word);
+			}
+			if (word == (excludedClientId >>> WORD_SHIFT)) {
+				candidates &= ~(1L << (excludedClientId & WORD_MASK));
+			}
+			while (candidates != 0) {
+				matches[count++] = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(candidates);
+				candidates &= candidates - 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param clientIndex index of the client (0 based)
+	 * @return the filter of the client, backed by the directory
+	 */
+	public ClientFilter getClientFilter(int clientIndex) {
+		return new ClientFilter(clientIndex);
+	}
+
+	/**
+	 * Counts the clients whose filter has all the hash value positions set.
+	 * The requesting client is skipped.
+	 *
+	 * @param hashPair packed hash values of the data, see Hash.hashPair
+	 * @param hashCount number of hash values
+	 * @param excludedClientId index of the requesting client
+	 * @return the number of matching clients
+	 */
+	public int countClients(long hashPair, int hashCount, int excludedClientId) {
+		int count = 0;
+		for (int word = 0; word < wordsPerSlice; word++) {
+			long candidates = -1L;
+			for (int j = 0; j < hashCount && candidates != 0; j++) {
+				candidates &= slices.get(Math.floorMod(Hash.probe(hashPair, j), size) * wordsPerSlice + word);
+			}
+			if (word == (excludedClientId >>> WORD_SHIFT)) {
+				candidates &= ~(1L << (excludedClientId & WORD_MASK));
+			}
+			count += Long.bitCount(candidates);
+		}
+		return count;
+	}
+
+	private int wordIndex(int clientIndex, int position) {
+		return Math.floorMod(position, size) * wordsPerSlice + (clientIndex >>> WORD_SHIFT);
+	}
+
+	/**
+	 * The bloom filter of one client, read from and written to the slices of
+	 * the directory
+	 */
+	public class ClientFilter implements BloomFilter {
+
+		private int clientIndex;
+
+		private ClientFilter(int clientIndex) {
+			this.clientIndex = clientIndex;
+		}
+
+		/**
+		 * @return the clientIndex
+		 */
+		public int getClientIndex() {
+			return clientIndex;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public boolean isBitSet(int position) {
+			return BitSlicedBloomDirectory.this.isBitSet(clientIndex, position);
+		}
+
+		public void setBit(int position) {
+			BitSlicedBloomDirectory.this.setBit(clientIndex, position);
+		}
+
+		public long getSizeInBits() {
+			return size;
+		}
+
+		public int getZeroBits() {
+			int zeroBits = 0;
+			for (int position = 0; position < size; position++) {
+				if (!isBitSet(position)) {
+					zeroBits++;
+				}
+			}
+			return zeroBits;
+		}
+	}
+}
@@ -2,4 +2,8 @@ package com.capstone.simulation.bloomfilters;
 
 public interface BloomFilter {
 
+	/**
+	 * @return the memory used by the filter cells, in bits
+	 */
+	public long getSizeInBits();
 }
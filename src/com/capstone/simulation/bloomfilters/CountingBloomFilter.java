@@ -0,0 +1,152 @@
+package com.capstone.simulation.bloomfilters;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class represents a counting bloom filter. Each cell is a 4 bit counter
+ * so data can be removed from the filter when it is evicted from the client
+ * cache. 16 counters are packed in a long.
+ * A counter that reaches its maximum value sticks there and is never
+ * decremented, since its real count is lost.
+ */
+public class CountingBloomFilter implements BloomFilter {
+
+	private static final int COUNTERS_PER_WORD = 16;
+	private static final int COUNTER_BITS = 4;
+	public static final int MAX_COUNT = 15;
+
+	private int size;
+	private AtomicLongArray counters;
+	private BitSlicedBloomDirectory directory; // Mirrors non zero counters for the proxy lookups
+	private int clientIndex;
+
+	/**
+	 * Constructor
+	 * @param size the number of counters in the bloom filter
+	 */
+	public CountingBloomFilter(int size) {
+		this.size = size;
+		counters = new AtomicLongArray((size + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+	}
+
+	/**
+	 * Attaches the directory that mirrors this filter. Every counter that
+	 * becomes non zero sets the client bit in the directory and every counter
+	 * that drops to zero clears it.
+	 * @param directory
+	 * @param clientIndex index of the client owning this filter
+	 */
+	public void attachDirectory(BitSlicedBloomDirectory directory, int clientIndex) {
+		this.directory = directory;
+		this.clientIndex = clientIndex;
+		for (int i = 0; i < size; i++) {
+			syncDirectory(i);
+		}
+	}
+
+	/**
+	 * Copies the counters into a new filter mirrored by the directory, which
+	 * must already be a copy of the directory of this filter
+	 * @param directory
+	 * @return
+	 */
+	public CountingBloomFilter copy(BitSlicedBloomDirectory directory) {
+		CountingBloomFilter copy = new CountingBloomFilter(0);
+		copy.size = size;
+		copy.counters = BitSlicedBloomDirectory.copyOf(counters);
+		copy.directory = directory;
+		copy.clientIndex = clientIndex;
+		return copy;
+	}
+
+	/**
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public int getCount(int position) {
+		position = Math.floorMod(position, getSize());
+		return (int) (counters.get(position / COUNTERS_PER_WORD) >>> shift(position)) & MAX_COUNT;
+	}
+
+	public boolean isCounterSet(int position) {
+		return getCount(position) > 0;
+	}
+
+	public void increment(int position) {
+		position = Math.floorMod(position, getSize());
+		int word = position / COUNTERS_PER_WORD;
+		int shift = shift(position);
+		while (true) {
+			long current = counters.get(word);
+			int count = (int) (current >>> shift) & MAX_COUNT;
+			if (count == MAX_COUNT) {
+				return;
+			}
+			if (counters.compareAndSet(word, current, current + (1L << shift))) {
+				if (count == 0) {
+					syncDirectory(position);
+				}
+				return;
+			}
+		}
+	}
+
+	public void decrement(int position) {
+		position = Math.floorMod(position, getSize());
+		int word = position / COUNTERS_PER_WORD;
+		int shift = shift(position);
+		while (true) {
+			long current = counters.get(word);
+			int count = (int) (current >>> shift) & MAX_COUNT;
+			if (count == 0 || count == MAX_COUNT) {
+				return;
+			}
+			if (counters.compareAndSet(word, current, current - (1L << shift))) {
+				if (count == 1) {
+					syncDirectory(position);
+				}
+				return;
+			}
+		}
+	}
+
+	public long getSizeInBits() {
+		return (long) counters.length() * Long.SIZE;
+	}
+
+	public int getZeroCounters() {
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (getCount(i) == 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Copies the counter state to the directory. The counter is read again
+	 * after the directory is written so a concurrent transition is not lost.
+	 */
+	private void syncDirectory(int position) {
+		if (directory == null) {
+			return;
+		}
+		boolean set;
+		do {
+			set = isCounterSet(position);
+			if (set) {
+				directory.setBit(clientIndex, position);
+			} else {
+				directory.clearBit(clientIndex, position);
+			}
+		} while (set != isCounterSet(position));
+	}
+
+	private static int shift(int position) {
+		return (position % COUNTERS_PER_WORD) * COUNTER_BITS;
+	}
+}
@@ -0,0 +1,270 @@
+package com.capstone.simulation.bloomfilters;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class represents a cuckoo filter. Each bucket holds 4 fingerprints of
+ * 16 bits packed in a long, and data may only be found in one of its two
+ * buckets, so a lookup reads 2 words. Unlike a bloom filter, data can be
+ * deleted.
+ *
+ * A fingerprint that finds no slot after MAX_KICKS relocations is kept in a
+ * one entry victim stash, which lookups check too. The stash is reinserted
+ * when a delete frees a slot. Only when an insert fails while the stash is
+ * full is a fingerprint dropped, and every lookup then matches until it is
+ * deleted, so the filter never gives a false negative.
+ *
+ * Inserts and deletes are synchronized on the filter. Lookups don't take the
+ * lock. Relocations make the version odd, and a lookup that misses while
+ * fingerprints move is repeated, so it can't miss a fingerprint in flight.
+ */
+public class CuckooFilter implements BloomFilter {
+
+	public static final int SLOTS_PER_BUCKET = 4;
+	public static final int FINGERPRINT_BITS = 16;
+	private static final long FINGERPRINT_MASK = (1L << FINGERPRINT_BITS) - 1;
+	private static final int MAX_KICKS = 500;
+
+	private int bucketMask;
+	private AtomicLongArray buckets;
+	private int count;
+	private volatile long stash; // Bucket index << 32 | fingerprint of the victim, 0 when empty
+	private volatile int lost; // Fingerprints dropped with a full stash, every lookup matches while any is left
+	private volatile int version; // Odd while fingerprints are relocated
+	private int kickIndex;
+
+	/**
+	 * Constructor
+	 * @param numberOfBuckets rounded up to a power of 2
+	 */
+	public CuckooFilter(int numberOfBuckets) {
+		int size = Integer.highestOneBit(Math.max(1, numberOfBuckets - 1)) << 1;
+		if (numberOfBuckets <= 1) {
+			size = 1;
+		}
+		this.bucketMask = size - 1;
+		this.buckets = new AtomicLongArray(size);
+	}
+
+	/**
+	 * @return a filter with the same fingerprints that is updated independently
+	 */
+	public synchronized CuckooFilter copy() {
+		CuckooFilter copy = new CuckooFilter(1);
+		copy.bucketMask = bucketMask;
+		copy.buckets = BitSlicedBloomDirectory.copyOf(buckets);
+		copy.count = count;
+		copy.stash = stash;
+		copy.lost = lost;
+		copy.kickIndex = kickIndex;
+		return copy;
+	}
+
+	/**
+	 * Returns the number of buckets a filter needs to hold the capacity at the
+	 * load factor
+	 * @param capacity number of data blocks
+	 * @param loadFactor expected occupancy of the slots
+	 * @return
+	 */
+	public static int bucketsFor(int capacity, double loadFactor) {
+		return (int) Math.ceil(capacity / (SLOTS_PER_BUCKET * loadFactor));
+	}
+
+	/**
+	 * @return the number of buckets
+	 */
+	public int getNumberOfBuckets() {
+		return bucketMask + 1;
+	}
+
+	/**
+	 * @return the number of fingerprints stored, including the stash
+	 */
+	public synchronized int getCount() {
+		return count;
+	}
+
+	public long getSizeInBits() {
+		return (long) getNumberOfBuckets() * SLOTS_PER_BUCKET * FINGERPRINT_BITS;
+	}
+
+	/**
+	 * Fingerprint of a hash value. 0 marks an empty slot, so it is never used.
+	 */
+	public static int fingerprint(int hash) {
+		int h = hash * 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		int fingerprint = (h >>> 16) & (int) FINGERPRINT_MASK;
+		return fingerprint == 0 ? 1 : fingerprint;
+	}
+
+	public int bucketIndex(int hash) {
+		return hash & bucketMask;
+	}
+
+	public int alternateIndex(int index, int fingerprint) {
+		return (index ^ (fingerprint * 0x5BD1E995)) & bucketMask;
+	}
+
+	/**
+	 * Checks if the fingerprint is in either bucket
+	 * @param fingerprint
+	 * @param index1
+	 * @param index2
+	 * @return
+	 */
+	public boolean contains(int fingerprint, int index1, int index2) {
+		int before;
+		boolean found;
+		do {
+			before = version;
+			found = hasFingerprint(buckets.get(index1), fingerprint) || hasFingerprint(buckets.get(index2), fingerprint)
+					|| inStash(fingerprint, index1, index2) || lost > 0;
+//			A miss is only trusted if no fingerprint moved meanwhile
+		} while (!found && ((before & 1) != 0 || version != before));
+		return found;
+	}
+
+	public boolean contains(int hash) {
+		int fingerprint = fingerprint(hash);
+		int index1 = bucketIndex(hash);
+		return contains(fingerprint, index1, alternateIndex(index1, fingerprint));
+	}
+
+	/**
+	 * Adds the hash value to the filter, relocating fingerprints if both
+	 * buckets are full. The fingerprint left over after MAX_KICKS goes to the
+	 * stash.
+	 * @param hash
+	 * @return false if the stash was full and a fingerprint was dropped
+	 */
+	public synchronized boolean add(int hash) {
+		int fingerprint = fingerprint(hash);
+		int index1 = bucketIndex(hash);
+		int index2 = alternateIndex(index1, fingerprint);
+		if (insertIntoBucket(index1, fingerprint) || insertIntoBucket(index2, fingerprint)) {
+			count++;
+			return true;
+		}
+		if (!reinsertStash()) {
+			lost++;
+			return false;
+		}
+
+		version++;
+		int index = (kickIndex++ & 1) == 0 ? index1 : index2;
+		boolean placed = false;
+		for (int kick = 0; kick < MAX_KICKS && !placed; kick++) {
+			int slot = (kickIndex++) & (SLOTS_PER_BUCKET - 1);
+			long bucket = buckets.get(index);
+			int evicted = getSlot(bucket, slot);
+			buckets.set(index, setSlot(bucket, slot, fingerprint));
+			fingerprint = evicted;
+			index = alternateIndex(index, fingerprint);
+			placed = insertIntoBucket(index, fingerprint);
+		}
+		if (!placed) {
+			stash = ((long) index << 32) | fingerprint;
+		}
+		version++;
+		count++;
+		return true;
+	}
+
+	/**
+	 * Removes one copy of the hash value from the filter. A fingerprint found
+	 * nowhere is taken to be one of the dropped ones.
+	 * @param hash
+	 * @return true if a fingerprint was removed
+	 */
+	public synchronized boolean remove(int hash) {
+		int fingerprint = fingerprint(hash);
+		int index1 = bucketIndex(hash);
+		int index2 = alternateIndex(index1, fingerprint);
+		if (removeFromBucket(index1, fingerprint) || removeFromBucket(index2, fingerprint)) {
+			count--;
+			reinsertStash();
+			return true;
+		}
+		if (inStash(fingerprint, index1, index2)) {
+			stash = 0;
+			count--;
+			return true;
+		}
+		if (lost > 0) {
+			lost--;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Moves the stashed fingerprint back to one of its buckets if either has a
+	 * free slot. It stays visible in the stash until it is in the bucket.
+	 * @return true if the stash is empty
+	 */
+	private boolean reinsertStash() {
+		long victim = stash;
+		if (victim == 0) {
+			return true;
+		}
+		int fingerprint = (int) (victim & FINGERPRINT_MASK);
+		int index = (int) (victim >>> 32);
+		if (insertIntoBucket(index, fingerprint) || insertIntoBucket(alternateIndex(index, fingerprint), fingerprint)) {
+			stash = 0;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean inStash(int fingerprint, int index1, int index2) {
+		long victim = stash;
+		if (victim == 0 || (int) (victim & FINGERPRINT_MASK) != fingerprint) {
+			return false;
+		}
+		int index = (int) (victim >>> 32);
+		return index == index1 || index == index2;
+	}
+
+	private boolean insertIntoBucket(int index, int fingerprint) {
+		long bucket = buckets.get(index);
+		for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+			if (getSlot(bucket, slot) == 0) {
+				buckets.set(index, setSlot(bucket, slot, fingerprint));
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean removeFromBucket(int index, int fingerprint) {
+		long bucket = buckets.get(index);
+		for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+			if (getSlot(bucket, slot) == fingerprint) {
+				buckets.set(index, setSlot(bucket, slot, 0));
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasFingerprint(long bucket, int fingerprint) {
+		for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+			if ((int) ((bucket >>> (slot * FINGERPRINT_BITS)) & FINGERPRINT_MASK) == fingerprint) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int getSlot(long bucket, int slot) {
+		return (int) ((bucket >>> (slot * FINGERPRINT_BITS)) & FINGERPRINT_MASK);
+	}
+
+	private static long setSlot(long bucket, int slot, int fingerprint) {
+		int shift = slot * FINGERPRINT_BITS;
+		return (bucket & ~(FINGERPRINT_MASK << shift)) | ((long) fingerprint << shift);
+	}
+}
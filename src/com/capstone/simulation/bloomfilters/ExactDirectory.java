@@ -0,0 +1,194 @@
+package com.capstone.simulation.bloomfilters;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class keeps the exact set of clients caching each data block, as a
+ * bitmap of clients per block. Unlike a bloom filter a lookup only returns
+ * clients that hold the data, at the cost of one bit per client for every
+ * block of the disk.
+ *
+ * Blocks in [0, diskSize) are stored in one atomic array and updated by
+ * compare and swap. Blocks outside it get their own bitmap on first insert.
+ */
+public class ExactDirectory implements BloomFilter {
+
+	private static final int WORD_SHIFT = 6;
+	private static final int WORD_MASK = 63;
+
+	private int diskSize;
+	private int numberOfClients;
+	private int wordsPerBlock;
+	private AtomicLongArray bitmaps;
+	private ConcurrentHashMap<Integer, AtomicLongArray> overflow;
+
+	/**
+	 * Constructor
+	 * @param diskSize data blocks are in [0, diskSize)
+	 * @param numberOfClients
+	 */
+	public ExactDirectory(int diskSize, int numberOfClients) {
+		this.diskSize = diskSize;
+		this.numberOfClients = numberOfClients;
+		this.wordsPerBlock = (numberOfClients + WORD_MASK) >>> WORD_SHIFT;
+		this.bitmaps = new AtomicLongArray(diskSize * wordsPerBlock);
+		this.overflow = new ConcurrentHashMap<Integer, AtomicLongArray>();
+	}
+
+	/**
+	 * @return the numberOfClients
+	 */
+	public int getNumberOfClients() {
+		return numberOfClients;
+	}
+
+	/**
+	 * @return a directory with the same holders that is updated independently
+	 */
+	public ExactDirectory copy() {
+		ExactDirectory copy = new ExactDirectory(0, numberOfClients);
+		copy.diskSize = diskSize;
+		copy.bitmaps = BitSlicedBloomDirectory.copyOf(bitmaps);
+		for (Map.Entry<Integer, AtomicLongArray> entry : overflow.entrySet()) {
+			copy.overflow.put(entry.getKey(), BitSlicedBloomDirectory.copyOf(entry.getValue()));
+		}
+		return copy;
+	}
+
+	/**
+	 * Records that the client caches data
+	 * @param clientIndex index of the client (0 based)
+	 * @param data
+	 */
+	public void add(int clientIndex, int data) {
+		AtomicLongArray array = arrayFor(data, true);
+		int word = wordIndex(data, clientIndex);
+		long mask = 1L << (clientIndex & WORD_MASK);
+		long current = array.get(word);
+		while ((current & mask) == 0 && !array.compareAndSet(word, current, current | mask)) {
+			current = array.get(word);
+		}
+	}
+
+	/**
+	 * Records that the client evicted data
+	 * @param clientIndex index of the client (0 based)
+	 * @param data
+	 */
+	public void remove(int clientIndex, int data) {
+		AtomicLongArray array = arrayFor(data, false);
+		if (array == null) {
+			return;
+		}
+		int word = wordIndex(data, clientIndex);
+		long mask = 1L << (clientIndex & WORD_MASK);
+		long current = array.get(word);
+		while ((current & mask) != 0 && !array.compareAndSet(word, current, current & ~mask)) {
+			current = array.get(word);
+		}
+	}
+
+	public boolean contains(int clientIndex, int data) {
+		AtomicLongArray array = arrayFor(data, false);
+		return array != null && (array.get(wordIndex(data, clientIndex)) & (1L << (clientIndex & WORD_MASK))) != 0;
+	}
+
+	/**
+	 * Finds the first client, starting from fromClientId, that caches data.
+	 * The requesting client is skipped.
+	 *
+	 * @param data
+	 * @param fromClientId index of the first client to consider
+	 * @param excludedClientId index of the requesting client
+	 * @return client index if data is cached. Else returns Integer.MIN_VALUE
+	 */
+	public int findClient(int data, int fromClientId, int excludedClientId) {
+		AtomicLongArray array = arrayFor(data, false);
+		if (array == null) {
+			return Integer.MIN_VALUE;
+		}
+		if (fromClientId < 0) {
+			fromClientId = 0;
+		}
+		int base = wordIndex(data, 0);
+		for (int word = fromClientId >>> WORD_SHIFT; word < wordsPerBlock; word++) {
+			long candidates = array.get(base + word);
+			if (word == (fromClientId >>> WORD_SHIFT)) {
+				candidates &= -1L << (fromClientId & WORD_MASK);
+			}
+			if (word == (excludedClientId >>> WORD_SHIFT)) {
+				candidates &= ~(1L << (excludedClientId & WORD_MASK));
+			}
+			if (candidates != 0) {
+				return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(candidates);
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Collects every client that caches data, in client order. The
+	 * requesting client is skipped.
+	 *
+	 * @param data
+	 * @param excludedClientId index of the requesting client
+	 * @param matches filled with the client indexes, at least numberOfClients
+	 *            long
+	 * @return the number of clients
+	 */
+	public int findClients(int data, int excludedClientId, int[] matches) {
+		AtomicLongArray array = arrayFor(data, false);
+		if (array == null) {
+			return 0;
+		}
+		int count = 0;
+		int base = wordIndex(data, 0);
+		for (int word = 0; word < wordsPerBlock; word++) {
+			long candidates = array.get(base + word);
+			if (word == (excludedClientId >>> WORD_SHIFT)) {
+				candidates &= ~(1L << (excludedClientId & WORD_MASK));
+			}
+			while (candidates != 0) {
+				matches[count++] = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(candidates);
+				candidates &= candidates - 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param clientIndex
+	 * @return the number of blocks of the disk the client caches
+	 */
+	public int getCachedCount(int clientIndex) {
+		int count = 0;
+		long mask = 1L << (clientIndex & WORD_MASK);
+		for (int data = 0; data < diskSize; data++) {
+			if ((bitmaps.get(wordIndex(data, clientIndex)) & mask) != 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public long getSizeInBits() {
+		return ((long) bitmaps.length() + (long) overflow.size() * wordsPerBlock) * Long.SIZE;
+	}
+
+	private AtomicLongArray arrayFor(int data, boolean create) {
+		if (data >= 0 && data < diskSize) {
+			return bitmaps;
+		}
+		if (create) {
+			return overflow.computeIfAbsent(data, key -> new AtomicLongArray(wordsPerBlock));
+		}
+		return overflow.get(data);
+	}
+
+	private int wordIndex(int data, int clientIndex) {
+		int block = (data >= 0 && data < diskSize) ? data : 0;
+		return block * wordsPerBlock + (clientIndex >>> WORD_SHIFT);
+	}
+}
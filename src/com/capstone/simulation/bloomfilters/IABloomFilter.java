@@ -1,71 +1,158 @@
 package com.capstone.simulation.bloomfilters;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-
 import com.capstone.simulation.utility.Hash;
 
 /**
  * This class represents Importance Aware Bloom Filter
+ * Each cell holds an importance level in the range 0 - M, so the cells are
+ * packed as 3 bit values, 21 to a long.
  * @author Pavan Kumar
  *
  */
 public class IABloomFilter implements BloomFilter{
+	private static final int CELL_BITS = 3;
+	private static final int CELLS_PER_WORD = 21;
+	private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+	private static final long LOW_BIT_OF_EACH_CELL = 0x1249249249249249L; // Bit 0 of all the 21 cells
+	
 	private int size;
 	private final int P = 10;
 	private final int M = 7;
-	private int[] array;
+	private long[] cells;
+	private long randomState; // State of the splitmix64 generator that picks the cells to decay
+	private int[] decayIndexes; // Reused for every decay step
+	private int decayInterval = 1; // Number of inserts a bulk decay is amortized across
+	private int insertsSinceDecay;
+	private BitSlicedBloomDirectory directory; // Mirrors non zero cells for the proxy lookups
+	private int clientIndex;
+	private Hash hash = Hash.getInstance();
 	
 	public IABloomFilter(int size) {
+		this(size, System.nanoTime());
+	}
+	
+	/**
+	 * Constructor
+	 * @param size number of cells in the filter
+	 * @param seed seed of the generator that picks the cells to decay
+	 */
+	public IABloomFilter(int size, long seed) {
 		this.setSize(size);
-		array = new int[size];
+		cells = new long[(size + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+		randomState = seed;
+		decayIndexes = new int[P];
 	}
-
+	
+	/**
+	 * @param hash the hash the filter cells are picked with
+	 */
+	public void setHash(Hash hash) {
+		this.hash = hash;
+	}
+	
+	/**
+	 * Attaches the directory that mirrors this filter. Every cell that becomes
+	 * non zero sets the client bit in the directory and every cell that decays
+	 * to zero clears it.
+	 * @param directory
+	 * @param clientIndex index of the client owning this filter
+	 */
+	public void attachDirectory(BitSlicedBloomDirectory directory, int clientIndex) {
+		this.directory = directory;
+		this.clientIndex = clientIndex;
+		for (int i = 0; i < size; i++) {
+			syncDirectory(i);
+		}
+	}
+	
+	/**
+	 * Copies the cells and the decay state into a new filter mirrored by the
+	 * directory, which must already be a copy of the directory of this filter
+	 * @param directory
+	 * @return
+	 */
+	public IABloomFilter copy(BitSlicedBloomDirectory directory) {
+		IABloomFilter copy = new IABloomFilter(0, randomState);
+		copy.size = size;
+		copy.cells = cells.clone();
+		copy.decayInterval = decayInterval;
+		copy.insertsSinceDecay = insertsSinceDecay;
+		copy.directory = directory;
+		copy.clientIndex = clientIndex;
+		copy.hash = hash;
+		return copy;
+	}
+	
 	/**
 	 * @return the size
 	 */
 	public int getSize() {
 		return size;
 	}
-
+	
 	/**
 	 * @param size the size to set
 	 */
 	public void setSize(int size) {
 		this.size = size;
 	}
-
+	
 	/**
 	 * @return the p
 	 */
 	public int getP() {
 		return P;
 	}
-
+	
 	/**
 	 * @return the m
 	 */
 	public int getM() {
 		return M;
 	}
-
+	
+	/**
+	 * @return the decayInterval
+	 */
+	public int getDecayInterval() {
+		return decayInterval;
+	}
+	
 	/**
-	 * @return the array
+	 * Sets the number of inserts a decay is amortized across. With an interval
+	 * of 1 every insert decays P random cells. With an interval of N every Nth
+	 * insert decays about N * P cells in bulk, a packed word at a time.
+	 * @param decayInterval the decayInterval to set
+	 */
+	public void setDecayInterval(int decayInterval) {
+		this.decayInterval = Math.max(1, decayInterval);
+		this.insertsSinceDecay = 0;
+	}
+	
+	/**
+	 * @return a copy of the cells unpacked to an array
 	 */
 	public int[] getArray() {
+		int[] array = new int[size];
+		for (int i = 0; i < size; i++) {
+			array[i] = getCell(i);
+		}
 		return array;
 	}
-
+	
 	/**
-	 * @param array the array to set
+	 * @param array the cells to set
 	 */
 	public void setArray(int[] array) {
-		this.array = array;
+		setSize(array.length);
+		cells = new long[(array.length + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+		for (int i = 0; i < array.length; i++) {
+			setIndexToValue(i, array[i]);
+		}
 	}
 	
 	public boolean isIndexSetToValue(int index, int value) {
-		if (array[index] == value) {
+		if (getCell(index) == value) {
 			return true;
 		}
 		return false;
@@ -73,15 +160,46 @@ public class IABloomFilter implements BloomFilter{
 	
 	public boolean isIndexSet(int index) {
 		index = Math.floorMod(index, getSize());
-//		System.out.println("Value at index: " + index + " is " + array[index]);
-		if (array[index] > 0) {
+//		System.out.println("Value at index: " + index + " is " + getCell(index));
+		if (getCell(index) > 0) {
 			return true;
 		}
 		return false;
 	}
 	
+	/**
+	 * Returns the importance stored at index
+	 * @param index
+	 * @return
+	 */
+	public int getCell(int index) {
+		return (int) ((cells[index / CELLS_PER_WORD] >>> shift(index)) & CELL_MASK);
+	}
+	
+	/**
+	 * Sets the importance at index. Values above M are kept at M.
+	 * @param index
+	 * @param value
+	 */
 	public void setIndexToValue(int index, int value) {
-		array[index] = value;
+		if (value > getM()) {
+			value = getM();
+		}
+		int word = index / CELLS_PER_WORD;
+		int shift = shift(index);
+		cells[word] = (cells[word] & ~(CELL_MASK << shift)) | ((long) value << shift);
+		syncDirectory(index);
+	}
+	
+	private void syncDirectory(int index) {
+		if (directory == null) {
+			return;
+		}
+		if (getCell(index) > 0) {
+			directory.setBit(clientIndex, index);
+		} else {
+			directory.clearBit(clientIndex, index);
+		}
 	}
 	
 	public void updateBF(int dataBlock, int importance) {
@@ -90,55 +208,121 @@ public class IABloomFilter implements BloomFilter{
 //				Keeping importance in the range 0 - 7
 				importance = getM();
 			}
-			List<Integer> pIndexes = new ArrayList<Integer>();
-			Random rand = new Random();
+			decay();
 			
-			while (pIndexes.size() != P) {
-				int index = rand.nextInt(size);
-				if(!pIndexes.contains(index)) {
-					pIndexes.add(index);
+			long pair = hash.hashPair(dataBlock);
+			for (int i = 0; i < hash.getHashFunctionsCount(); i++) {
+				int position = Math.floorMod(Hash.probe(pair, i), getSize());
+				if (importance == 0) {
+					setIndexToValue(position, 1);
+				} else if(getCell(position) < importance) {
+					setIndexToValue(position, importance);
 				}
 			}
-			
-			for(int index : pIndexes) {
-				if(array[index] >= 1) {
-					array[index] -= 1;
-				}
+		
+		}
+	}
+	
+	/**
+	 * Decays the filter by 1 at P distinct random cells, or in bulk once every
+	 * decayInterval calls. No objects are allocated.
+	 */
+	public void decay() {
+		if (decayInterval > 1) {
+			if (++insertsSinceDecay >= decayInterval) {
+				insertsSinceDecay = 0;
+				decayWords((decayInterval * P + CELLS_PER_WORD - 1) / CELLS_PER_WORD);
 			}
-			
-			int[] arrayPositions = Hash.getInstance().generateHashValues(dataBlock);
-			for(int position : arrayPositions) {
-				position = Math.floorMod(position, getSize());
-				if (importance == 0) {
-					array[position] = 1;
-				} else if(array[position] < importance) {
-					array[position] = importance;
+			return;
+		}
+		
+		int count = Math.min(P, size);
+		int picked = 0;
+		while (picked != count) {
+			int index = nextInt(size);
+			boolean duplicate = false;
+			for (int i = 0; i < picked; i++) {
+				if (decayIndexes[i] == index) {
+					duplicate = true;
+					break;
 				}
 			}
+			if (!duplicate) {
+				decayIndexes[picked++] = index;
+			}
+		}
+		
+		for (int i = 0; i < count; i++) {
+			int value = getCell(decayIndexes[i]);
+			if (value >= 1) {
+				setIndexToValue(decayIndexes[i], value - 1);
+			}
+		}
+	}
+	
+	/**
+	 * Decrements every non zero cell of randomly picked words at once
+	 * @param words number of words to decay
+	 */
+	private void decayWords(int words) {
+		for (int i = 0; i < words; i++) {
+			int word = nextInt(cells.length);
+			long value = cells[word];
+			long nonZero = (value | (value >>> 1) | (value >>> 2)) & LOW_BIT_OF_EACH_CELL;
+			long ones = nonZero & ~((value >>> 1) | (value >>> 2));
+			cells[word] = value - nonZero; // Cells are at least 1, so there is no borrow between cells
 			
+			while (ones != 0 && directory != null) {
+				int index = word * CELLS_PER_WORD + Long.numberOfTrailingZeros(ones) / CELL_BITS;
+				syncDirectory(index);
+				ones &= ones - 1;
+			}
 		}
 	}
 	
+	/**
+	 * Returns a random number in the range [0 - bound) from the splitmix64 sequence
+	 */
+	private int nextInt(int bound) {
+		long z = (randomState += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (int) (((z >>> 32) * bound) >>> 32);
+	}
+	
 	public boolean hasDataBlock(int data) {
-		int[] positions = Hash.getInstance().generateHashValues(data);
+		long pair = hash.hashPair(data);
 		
-		for (int position : positions) {
-			position = Math.floorMod(position, getSize());
-			if (array[position] == 0) {
+		for (int i = 0; i < hash.getHashFunctionsCount(); i++) {
+			int position = Math.floorMod(Hash.probe(pair, i), getSize());
+			if (getCell(position) == 0) {
 				return false;
 			}
 		}
 		return true;
 	}
 	
+	public long getSizeInBits() {
+		return (long) cells.length * Long.SIZE;
+	}
+	
+	/**
+	 * Counts the zero cells a word at a time: a cell is non zero when any of
+	 * its 3 bits is set, which is folded into the low bit of each cell.
+	 * @return
+	 */
 	public int getZeroCells() {
-		int count = 0;
-		for (int i = 0; i < array.length; i++) {
-			if (array[i] == 0) {
-				count++;
-			}
+		int nonZero = 0;
+		for (int i = 0; i < cells.length; i++) {
+			long word = cells[i];
+			nonZero += Long.bitCount((word | (word >>> 1) | (word >>> 2)) & LOW_BIT_OF_EACH_CELL);
 		}
-		return count;
+		return size - nonZero;
 	}
 	
+	private static int shift(int index) {
+		return (index % CELLS_PER_WORD) * CELL_BITS;
+	}
+
 }
@@ -54,6 +54,10 @@ public class StandardBloomFilter implements BloomFilter{
 		bitArray.set(position);
 	}
 	
+	public long getSizeInBits() {
+		return getSize();
+	}
+	
 	public int getZeroBits() {
 		return (getSize() - bitArray.cardinality());
 	}
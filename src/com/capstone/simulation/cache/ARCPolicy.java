@@ -0,0 +1,104 @@
+package com.capstone.simulation.cache;
+
+/**
+ * This policy is the Adaptive Replacement Cache of Megiddo and Modha. Blocks
+ * seen once are in the recency list T1 and blocks hit again in the frequency
+ * list T2, both in LRU order. The ghost lists B1 and B2 remember the blocks
+ * evicted from each. A block coming back through B1 moves the target size p
+ * of T1 up, through B2 down, and the victim is the oldest block of T1 while
+ * T1 is over its target, else the oldest of T2.
+ *
+ * The cache asks for a victim before it inserts, so a ghost hit adapts p in
+ * victim when the cache is full and in inserted otherwise. Blocks removed by
+ * the cooperative algorithm leave no ghost.
+ */
+public class ARCPolicy implements ReplacementPolicy {
+
+	private static final int T1 = 0;
+	private static final int T2 = 1;
+
+	private BlockCache cache;
+	private int capacity;
+	private SlotLists lists;
+	private GhostList b1;
+	private GhostList b2;
+	private int target; // p, the size of T1 the policy aims for
+	private boolean adaptedInVictim; // The next insert was already looked up in the ghost lists
+	private boolean ghostHit; // The block being inserted was in a ghost list
+
+	@Override
+	public void initialize(BlockCache cache) {
+		this.cache = cache;
+		this.capacity = Math.max(1, cache.getCapacity());
+		lists = new SlotLists(capacity, 2);
+		b1 = new GhostList(capacity);
+		b2 = new GhostList(capacity);
+		target = 0;
+		adaptedInVictim = false;
+	}
+
+	@Override
+	public void inserted(int slot) {
+		if (!adaptedInVictim) {
+			ghostHit = adapt(cache.getData(slot));
+		}
+		adaptedInVictim = false;
+		if (ghostHit) {
+			lists.addNewest(T2, slot);
+		} else {
+			lists.addNewest(T1, slot);
+		}
+//		Keeps |T1| + |B1| <= c and the whole directory <= 2c
+		while (lists.size(T1) + b1.size() > capacity && b1.size() > 0) {
+			b1.removeOldest();
+		}
+		while (lists.size(T1) + lists.size(T2) + b1.size() + b2.size() > 2 * capacity && b2.size() > 0) {
+			b2.removeOldest();
+		}
+	}
+
+	@Override
+	public void accessed(int slot) {
+		lists.remove(slot);
+		lists.addNewest(T2, slot);
+	}
+
+	@Override
+	public void removed(int slot) {
+		lists.remove(slot);
+	}
+
+	@Override
+	public int victim(int data) {
+		boolean inB2 = b2.contains(data);
+		ghostHit = adapt(data);
+		adaptedInVictim = true;
+
+		int t1Size = lists.size(T1);
+		int slot;
+		if (t1Size > 0 && (t1Size > target || (t1Size == target && inB2) || lists.size(T2) == 0)) {
+			slot = lists.getOldest(T1);
+			b1.addNewest(cache.getData(slot));
+		} else {
+			slot = lists.getOldest(T2);
+			b2.addNewest(cache.getData(slot));
+		}
+		return slot;
+	}
+
+	/**
+	 * Moves the target size of T1 towards the ghost list data comes back
+	 * through, and forgets the ghost
+	 * @return true if data was in a ghost list
+	 */
+	private boolean adapt(int data) {
+		if (b1.contains(data)) {
+			target = Math.min(capacity, target + Math.max(1, b2.size() / b1.size()));
+			return b1.remove(data);
+		} else if (b2.contains(data)) {
+			target = Math.max(0, target - Math.max(1, b1.size() / b2.size()));
+			return b2.remove(data);
+		}
+		return false;
+	}
+}
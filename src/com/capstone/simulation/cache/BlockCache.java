@@ -0,0 +1,337 @@
+package com.capstone.simulation.cache;
+
+import com.capstone.simulation.data.DataBlock;
+
+/**
+ * This class is the cache of a client, keyed by the primitive data of the
+ * blocks. The cache keeps no object per block: every
+ * cached block is a slot in parallel arrays holding its data, access count,
+ * recirculation count and timestamp. An open addressing table maps the data
+ * to its slot and the slots are linked from the least to the most recently
+ * used. A lookup is one probe of the table, and inserts, promotions and
+ * evictions relink slots in constant time.
+ *
+ * The block evicted from a full cache is picked by the replacement policy of
+ * the cache, LRU unless another one is given. The recency list is kept for
+ * every policy, since snapshots of the cache walk it.
+ *
+ * Timestamps are logical: the cache counts the blocks inserted or served so
+ * far, so blocks are ordered by their last insert or serve without reading
+ * the clock.
+ *
+ * Slots are read with the getters and walked with getOldest, getNewer,
+ * getNewest and getOlder, which return NONE past the end. DataBlocks are
+ * only created for the blocks that leave the cache. The cache isn't thread
+ * safe. Clients lock it while they use it.
+ */
+public class BlockCache {
+
+	public static final int NONE = -1;
+
+	private int capacity;
+	private int size;
+	private long clock; // Timestamp of the last inserted or served block
+	private int[] table; // Slot + 1 of the block hashed there, 0 when empty
+	private int mask;
+
+	private int[] data;
+	private int[] accessCounts;
+	private int[] recirculationCounts;
+	private long[] timeStamps;
+
+	private int[] older; // Next less recently used slot
+	private int[] newer; // Next more recently used slot, or next free slot
+	private int oldest;
+	private int newest;
+	private int free; // First unused slot
+
+	private ReplacementPolicy policy;
+
+	/**
+	 * Constructor for a least recently used cache
+	 * @param capacity number of blocks the cache holds
+	 */
+	public BlockCache(int capacity) {
+		this(capacity, new LRUPolicy());
+	}
+
+	/**
+	 * Constructor
+	 * @param capacity number of blocks the cache holds
+	 * @param policy which picks the evicted blocks, only used by this cache
+	 */
+	public BlockCache(int capacity, ReplacementPolicy policy) {
+		this.capacity = capacity;
+		int slots = Math.max(1, capacity);
+		int tableSize = Integer.highestOneBit(Math.max(2, 2 * slots - 1)) << 1;
+		this.table = new int[tableSize];
+		this.mask = tableSize - 1;
+		this.data = new int[slots];
+		this.accessCounts = new int[slots];
+		this.recirculationCounts = new int[slots];
+		this.timeStamps = new long[slots];
+		this.older = new int[slots];
+		this.newer = new int[slots];
+		for (int slot = 0; slot < slots; slot++) {
+			newer[slot] = slot + 1 < slots ? slot + 1 : NONE;
+		}
+		free = 0;
+		oldest = NONE;
+		newest = NONE;
+		this.policy = policy;
+		policy.initialize(this);
+	}
+
+	/**
+	 * Returns the slot of a cached block without changing its recency
+	 * @param data
+	 * @return NONE if the block isn't cached
+	 */
+	public int slotOf(int data) {
+		int index = home(data);
+		while (table[index] != 0) {
+			int slot = table[index] - 1;
+			if (this.data[slot] == data) {
+				return slot;
+			}
+			index = (index + 1) & mask;
+		}
+		return NONE;
+	}
+
+	public boolean contains(int data) {
+		return slotOf(data) != NONE;
+	}
+
+	/**
+	 * Makes the block the most recently used if it is cached
+	 * @param data
+	 * @return true if the block is cached
+	 */
+	public boolean touch(int data) {
+		int slot = slotOf(data);
+		if (slot == NONE) {
+			return false;
+		}
+		if (slot != newest) {
+			unlink(slot);
+			link(slot);
+		}
+		policy.accessed(slot);
+		return true;
+	}
+
+	/**
+	 * Serves a cached block to another client. The block becomes the most
+	 * recently used, its access count is incremented, its recirculation
+	 * count is reset and it gets a new timestamp.
+	 * @param data
+	 * @return a copy of the block to forward, null if the block isn't cached
+	 */
+	public DataBlock serve(int data) {
+		int slot = slotOf(data);
+		if (slot == NONE) {
+			return null;
+		}
+		unlink(slot);
+		accessCounts[slot]++;
+		recirculationCounts[slot] = DataBlock.RECIRCULATION_CONST;
+		timeStamps[slot] = ++clock;
+		link(slot);
+		policy.accessed(slot);
+		return toBlock(slot);
+	}
+
+	/**
+	 * Adds the block as the most recently used one. A block with the same
+	 * data is replaced. If the cache is full the block picked by the
+	 * replacement policy is evicted.
+	 * @param block
+	 * @return the evicted block, null if nothing was evicted
+	 */
+	public DataBlock put(DataBlock block) {
+		int slot = slotOf(block.getData());
+		if (slot != NONE) {
+			unlink(slot);
+			store(slot, block);
+			link(slot);
+			policy.accessed(slot);
+			return null;
+		}
+		if (capacity == 0) {
+			return block;
+		}
+		DataBlock evicted = null;
+		if (size >= capacity) {
+			evicted = toBlock(policy.victim(block.getData()));
+			remove(evicted.getData());
+		}
+		slot = free;
+		free = newer[slot];
+		store(slot, block);
+		link(slot);
+		int index = home(block.getData());
+		while (table[index] != 0) {
+			index = (index + 1) & mask;
+		}
+		table[index] = slot + 1;
+		size++;
+		policy.inserted(slot);
+		return evicted;
+	}
+
+	/**
+	 * Removes the block of data from the cache
+	 * @param data
+	 * @return true if the block was cached
+	 */
+	public boolean remove(int data) {
+		int index = home(data);
+		while (table[index] != 0 && this.data[table[index] - 1] != data) {
+			index = (index + 1) & mask;
+		}
+		if (table[index] == 0) {
+			return false;
+		}
+		int slot = table[index] - 1;
+		policy.removed(slot);
+		deleteFromTable(index);
+		unlink(slot);
+		newer[slot] = free;
+		free = slot;
+		size--;
+		return true;
+	}
+
+	/**
+	 * @param slot
+	 * @return a new DataBlock with the contents of the slot
+	 */
+	public DataBlock toBlock(int slot) {
+		DataBlock block = new DataBlock(data[slot]);
+		block.setAccessCount(accessCounts[slot]);
+		block.setRecirculationCount(recirculationCounts[slot]);
+		block.setTimeStamp(timeStamps[slot]);
+		return block;
+	}
+
+	public int getData(int slot) {
+		return data[slot];
+	}
+
+	public int getAccessCount(int slot) {
+		return accessCounts[slot];
+	}
+
+	public int getRecirculationCount(int slot) {
+		return recirculationCounts[slot];
+	}
+
+	public long getTimeStamp(int slot) {
+		return timeStamps[slot];
+	}
+
+	/**
+	 * @return the slot of the least recently used block, NONE if the cache is
+	 *         empty
+	 */
+	public int getOldest() {
+		return oldest;
+	}
+
+	/**
+	 * @return the slot of the most recently used block, NONE if the cache is
+	 *         empty
+	 */
+	public int getNewest() {
+		return newest;
+	}
+
+	/**
+	 * @param slot
+	 * @return the slot of the next more recently used block, NONE after the
+	 *         newest
+	 */
+	public int getNewer(int slot) {
+		return newer[slot];
+	}
+
+	/**
+	 * @param slot
+	 * @return the slot of the next less recently used block, NONE after the
+	 *         oldest
+	 */
+	public int getOlder(int slot) {
+		return older[slot];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private void store(int slot, DataBlock block) {
+		data[slot] = block.getData();
+		accessCounts[slot] = block.getAccessCount();
+		recirculationCounts[slot] = block.getRecirculationCount();
+		timeStamps[slot] = ++clock;
+	}
+
+	private int home(int data) {
+		int h = data * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Empties a table index and shifts back the blocks probed past it, so
+	 * lookups never need tombstones
+	 */
+	private void deleteFromTable(int index) {
+		int hole = index;
+		int next = (hole + 1) & mask;
+		while (table[next] != 0) {
+			int home = home(data[table[next] - 1]);
+//			Move the block if the hole lies between its home and its index
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				table[hole] = table[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[hole] = 0;
+	}
+
+	private void link(int slot) {
+		older[slot] = newest;
+		newer[slot] = NONE;
+		if (newest != NONE) {
+			newer[newest] = slot;
+		} else {
+			oldest = slot;
+		}
+		newest = slot;
+	}
+
+	private void unlink(int slot) {
+		if (older[slot] != NONE) {
+			newer[older[slot]] = newer[slot];
+		} else {
+			oldest = newer[slot];
+		}
+		if (newer[slot] != NONE) {
+			older[newer[slot]] = older[slot];
+		} else {
+			newest = older[slot];
+		}
+	}
+}
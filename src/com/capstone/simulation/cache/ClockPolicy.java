@@ -0,0 +1,51 @@
+package com.capstone.simulation.cache;
+
+/**
+ * This policy approximates LRU with CLOCK. Every slot has a referenced bit
+ * that a hit sets, and the hand sweeps the slots in index order clearing the
+ * bits until it finds an unreferenced block. A new block starts unreferenced,
+ * as in the hint cache of the proxy. A full sweep clears every bit, so a
+ * victim costs constant amortized time.
+ */
+public class ClockPolicy implements ReplacementPolicy {
+
+	private boolean[] used; // The slot holds a block
+	private boolean[] referenced;
+	private int hand;
+
+	@Override
+	public void initialize(BlockCache cache) {
+		int slots = Math.max(1, cache.getCapacity());
+		used = new boolean[slots];
+		referenced = new boolean[slots];
+		hand = 0;
+	}
+
+	@Override
+	public void inserted(int slot) {
+		used[slot] = true;
+		referenced[slot] = false;
+	}
+
+	@Override
+	public void accessed(int slot) {
+		referenced[slot] = true;
+	}
+
+	@Override
+	public void removed(int slot) {
+		used[slot] = false;
+		referenced[slot] = false;
+	}
+
+	@Override
+	public int victim(int data) {
+		while (!used[hand] || referenced[hand]) {
+			referenced[hand] = false;
+			hand = (hand + 1) % used.length;
+		}
+		int slot = hand;
+		hand = (hand + 1) % used.length;
+		return slot;
+	}
+}
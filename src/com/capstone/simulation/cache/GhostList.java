@@ -0,0 +1,119 @@
+package com.capstone.simulation.cache;
+
+/**
+ * This class remembers the data of recently evicted blocks, without the
+ * blocks, for the policies that adapt to blocks coming back. The entries are
+ * kept from the oldest to the newest in entry slots, and an open addressing
+ * table maps the data to its entry as in the block cache. Adding to a full
+ * list forgets the oldest entry.
+ */
+class GhostList {
+
+	private int capacity;
+	private int size;
+	private int[] table; // Entry + 1 of the data hashed there, 0 when empty
+	private int mask;
+	private int[] data;
+	private SlotLists entries; // List 0 holds the entries in use
+	private int[] free; // Stack of unused entries
+	private int freeCount;
+
+	/**
+	 * Constructor
+	 * @param capacity number of evicted blocks remembered
+	 */
+	GhostList(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		int tableSize = Integer.highestOneBit(Math.max(2, 2 * this.capacity - 1)) << 1;
+		this.table = new int[tableSize];
+		this.mask = tableSize - 1;
+		this.data = new int[this.capacity];
+		this.entries = new SlotLists(this.capacity, 1);
+		this.free = new int[this.capacity];
+		for (int entry = 0; entry < this.capacity; entry++) {
+			free[entry] = this.capacity - 1 - entry;
+		}
+		this.freeCount = this.capacity;
+	}
+
+	boolean contains(int data) {
+		return indexOf(data) != BlockCache.NONE;
+	}
+
+	/**
+	 * Adds data as the newest entry, forgetting the oldest one if the list is
+	 * full
+	 * @param data which isn't in the list
+	 */
+	void addNewest(int data) {
+		if (size == capacity) {
+			removeOldest();
+		}
+		int entry = free[--freeCount];
+		this.data[entry] = data;
+		entries.addNewest(0, entry);
+		int index = home(data);
+		while (table[index] != 0) {
+			index = (index + 1) & mask;
+		}
+		table[index] = entry + 1;
+		size++;
+	}
+
+	/**
+	 * @param data
+	 * @return true if data was in the list
+	 */
+	boolean remove(int data) {
+		int index = indexOf(data);
+		if (index == BlockCache.NONE) {
+			return false;
+		}
+		int entry = table[index] - 1;
+		deleteFromTable(index);
+		entries.remove(entry);
+		free[freeCount++] = entry;
+		size--;
+		return true;
+	}
+
+	void removeOldest() {
+		if (size > 0) {
+			remove(data[entries.getOldest(0)]);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	private int indexOf(int data) {
+		int index = home(data);
+		while (table[index] != 0) {
+			if (this.data[table[index] - 1] == data) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return BlockCache.NONE;
+	}
+
+	private int home(int data) {
+		int h = data * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private void deleteFromTable(int index) {
+		int hole = index;
+		int next = (hole + 1) & mask;
+		while (table[next] != 0) {
+			int home = home(data[table[next] - 1]);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				table[hole] = table[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[hole] = 0;
+	}
+}
@@ -0,0 +1,68 @@
+package com.capstone.simulation.cache;
+
+/**
+ * This policy evicts the block with the lowest access count, and of those the
+ * one with the oldest timestamp, as DBComparator orders blocks. Blocks are
+ * kept in a bucket per access count, and a block only enters a bucket when
+ * it is inserted or served, which are also the only times its timestamp
+ * moves. So every bucket is in timestamp order and the victim is the oldest
+ * block of the lowest non empty bucket.
+ *
+ * Counts from BUCKETS - 1 up share the last bucket, ordered by timestamp.
+ * Local hits don't change the access count, so they don't move the block.
+ */
+public class LFUPolicy implements ReplacementPolicy {
+
+	private static final int BUCKETS = Long.SIZE;
+
+	private BlockCache cache;
+	private SlotLists buckets;
+	private long nonEmpty; // Bit of every bucket holding a block
+	private long[] linkedTimeStamps; // Timestamp of the block when it entered its bucket
+
+	@Override
+	public void initialize(BlockCache cache) {
+		this.cache = cache;
+		int slots = Math.max(1, cache.getCapacity());
+		buckets = new SlotLists(slots, BUCKETS);
+		nonEmpty = 0;
+		linkedTimeStamps = new long[slots];
+	}
+
+	@Override
+	public void inserted(int slot) {
+		link(slot);
+	}
+
+	@Override
+	public void accessed(int slot) {
+		if (cache.getTimeStamp(slot) != linkedTimeStamps[slot]) {
+			unlink(slot);
+			link(slot);
+		}
+	}
+
+	@Override
+	public void removed(int slot) {
+		unlink(slot);
+	}
+
+	@Override
+	public int victim(int data) {
+		return buckets.getOldest(Long.numberOfTrailingZeros(nonEmpty));
+	}
+
+	private void link(int slot) {
+		int bucket = Math.min(BUCKETS - 1, Math.max(0, cache.getAccessCount(slot)));
+		buckets.addNewest(bucket, slot);
+		nonEmpty |= 1L << bucket;
+		linkedTimeStamps[slot] = cache.getTimeStamp(slot);
+	}
+
+	private void unlink(int slot) {
+		int bucket = buckets.remove(slot);
+		if (bucket != BlockCache.NONE && buckets.size(bucket) == 0) {
+			nonEmpty &= ~(1L << bucket);
+		}
+	}
+}
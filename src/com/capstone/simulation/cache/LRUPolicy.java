@@ -0,0 +1,35 @@
+package com.capstone.simulation.cache;
+
+/**
+ * This policy evicts the least recently used block. The cache keeps its
+ * slots in recency order anyway, so the policy only reads the oldest one.
+ */
+public class LRUPolicy implements ReplacementPolicy {
+
+	private BlockCache cache;
+
+	@Override
+	public void initialize(BlockCache cache) {
+		this.cache = cache;
+	}
+
+	@Override
+	public void inserted(int slot) {
+
+	}
+
+	@Override
+	public void accessed(int slot) {
+
+	}
+
+	@Override
+	public void removed(int slot) {
+
+	}
+
+	@Override
+	public int victim(int data) {
+		return cache.getOldest();
+	}
+}
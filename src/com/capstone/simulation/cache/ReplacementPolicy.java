@@ -0,0 +1,45 @@
+package com.capstone.simulation.cache;
+
+/**
+ * This interface picks the block a client cache evicts when it is full. The
+ * cache tells its policy about every slot it fills, hits and frees, and asks
+ * for a victim before it inserts a new block into a full cache. All the
+ * calls must take constant time.
+ *
+ * A policy belongs to one cache and runs under the lock of its cache.
+ */
+public interface ReplacementPolicy {
+
+	/**
+	 * Called once by the cache before any other call
+	 * @param cache whose slots the policy orders
+	 */
+	public void initialize(BlockCache cache);
+
+	/**
+	 * A new block was stored in the slot
+	 * @param slot
+	 */
+	public void inserted(int slot);
+
+	/**
+	 * The block of the slot was hit locally, served to another client or
+	 * replaced
+	 * @param slot
+	 */
+	public void accessed(int slot);
+
+	/**
+	 * The block of the slot is about to leave the cache, evicted or removed
+	 * by the cooperative algorithm
+	 * @param slot
+	 */
+	public void removed(int slot);
+
+	/**
+	 * Picks the block to evict from the full cache
+	 * @param data which is going to be inserted
+	 * @return the slot to evict
+	 */
+	public int victim(int data);
+}
@@ -0,0 +1,43 @@
+package com.capstone.simulation.cache;
+
+import com.capstone.simulation.utility.ReplacementPolicyType;
+
+public class ReplacementPolicyFactory {
+
+	/**
+	 * Builds a new policy, every cache needs its own
+	 * @param replacementPolicyType
+	 * @return
+	 */
+	public static ReplacementPolicy createPolicy(ReplacementPolicyType replacementPolicyType) {
+		ReplacementPolicy policy = null;
+		
+		switch (replacementPolicyType) {
+			case LRU:
+				policy = new LRUPolicy();
+				break;
+				
+			case CLOCK:
+				policy = new ClockPolicy();
+				break;
+				
+			case ARC:
+				policy = new ARCPolicy();
+				break;
+				
+			case TwoQ:
+				policy = new TwoQPolicy();
+				break;
+				
+			case LFU:
+				policy = new LFUPolicy();
+				break;
+				
+			default:
+				System.out.println("Replacement policy not allowed");
+				System.exit(0);
+				break;
+		}
+		return policy;
+	}
+}
@@ -0,0 +1,90 @@
+package com.capstone.simulation.cache;
+
+import java.util.Arrays;
+
+/**
+ * This class links the slots of a cache into a few lists, each ordered from
+ * its oldest to its newest slot. A slot is in at most one list. The policies
+ * keep their queues, LRU lists and frequency buckets in it.
+ */
+class SlotLists {
+
+	private int[] older;
+	private int[] newer;
+	private int[] listOf; // List of the slot, NONE when it isn't linked
+	private int[] oldest;
+	private int[] newest;
+	private int[] sizes;
+
+	/**
+	 * Constructor
+	 * @param slots number of slots of the cache
+	 * @param lists number of lists
+	 */
+	SlotLists(int slots, int lists) {
+		older = new int[slots];
+		newer = new int[slots];
+		listOf = new int[slots];
+		Arrays.fill(listOf, BlockCache.NONE);
+		oldest = new int[lists];
+		newest = new int[lists];
+		Arrays.fill(oldest, BlockCache.NONE);
+		Arrays.fill(newest, BlockCache.NONE);
+		sizes = new int[lists];
+	}
+
+	/**
+	 * Links the slot as the newest of the list
+	 * @param list
+	 * @param slot which isn't in any list
+	 */
+	void addNewest(int list, int slot) {
+		older[slot] = newest[list];
+		newer[slot] = BlockCache.NONE;
+		if (newest[list] != BlockCache.NONE) {
+			newer[newest[list]] = slot;
+		} else {
+			oldest[list] = slot;
+		}
+		newest[list] = slot;
+		listOf[slot] = list;
+		sizes[list]++;
+	}
+
+	/**
+	 * Unlinks the slot from its list
+	 * @param slot
+	 * @return the list the slot was in, NONE if it wasn't in any
+	 */
+	int remove(int slot) {
+		int list = listOf[slot];
+		if (list == BlockCache.NONE) {
+			return BlockCache.NONE;
+		}
+		if (older[slot] != BlockCache.NONE) {
+			newer[older[slot]] = newer[slot];
+		} else {
+			oldest[list] = newer[slot];
+		}
+		if (newer[slot] != BlockCache.NONE) {
+			older[newer[slot]] = older[slot];
+		} else {
+			newest[list] = older[slot];
+		}
+		listOf[slot] = BlockCache.NONE;
+		sizes[list]--;
+		return list;
+	}
+
+	int listOf(int slot) {
+		return listOf[slot];
+	}
+
+	int getOldest(int list) {
+		return oldest[list];
+	}
+
+	int size(int list) {
+		return sizes[list];
+	}
+}
@@ -0,0 +1,60 @@
+package com.capstone.simulation.cache;
+
+/**
+ * This policy is the full 2Q of Johnson and Shasha. New blocks enter the
+ * FIFO queue A1in, whose hits are ignored, and the ghost queue A1out
+ * remembers the blocks it evicts. A block coming back through A1out was
+ * referenced twice, so it enters the LRU list Am. A1in is evicted while it
+ * holds more than a quarter of the cache, else Am.
+ */
+public class TwoQPolicy implements ReplacementPolicy {
+
+	private static final int A1IN = 0;
+	private static final int AM = 1;
+
+	private BlockCache cache;
+	private int inCapacity; // Kin
+	private SlotLists lists;
+	private GhostList out; // A1out, half the cache
+
+	@Override
+	public void initialize(BlockCache cache) {
+		this.cache = cache;
+		int capacity = Math.max(1, cache.getCapacity());
+		inCapacity = Math.max(1, capacity / 4);
+		lists = new SlotLists(capacity, 2);
+		out = new GhostList(Math.max(1, capacity / 2));
+	}
+
+	@Override
+	public void inserted(int slot) {
+		if (out.remove(cache.getData(slot))) {
+			lists.addNewest(AM, slot);
+		} else {
+			lists.addNewest(A1IN, slot);
+		}
+	}
+
+	@Override
+	public void accessed(int slot) {
+		if (lists.listOf(slot) == AM) {
+			lists.remove(slot);
+			lists.addNewest(AM, slot);
+		}
+	}
+
+	@Override
+	public void removed(int slot) {
+		lists.remove(slot);
+	}
+
+	@Override
+	public int victim(int data) {
+		if (lists.size(A1IN) > inCapacity || lists.size(AM) == 0) {
+			int slot = lists.getOldest(A1IN);
+			out.addNewest(cache.getData(slot));
+			return slot;
+		}
+		return lists.getOldest(AM);
+	}
+}
@@ -1,17 +1,18 @@
 package com.capstone.simulation.client;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CyclicBarrier;
 
+import com.capstone.simulation.cache.BlockCache;
+import com.capstone.simulation.cache.ReplacementPolicyFactory;
 import com.capstone.simulation.data.DataBlock;
 import com.capstone.simulation.data.Forward;
+import com.capstone.simulation.metrics.Metric;
 import com.capstone.simulation.proxy.Proxy;
 import com.capstone.simulation.utility.BloomFilterType;
+import com.capstone.simulation.utility.ReplacementPolicyType;
 
 /**
  * This is an abstract class for client.
@@ -23,7 +24,8 @@ public abstract class Client implements Runnable {
 
 	private int id;
 	private int cacheSize;
-	private LinkedHashMap<DataBlock, Integer> cache; // Least Recently Used caching algorithm
+	private BlockCache cache;
+	private ReplacementPolicyType replacementPolicyType = ReplacementPolicyType.LRU; // Picks the blocks evicted from the cache
 	private ConcurrentLinkedDeque<Forward> dueResponses; // responses due for other clients
 	private ArrayList<Integer> requests;
 	private Client[] clients;
@@ -62,14 +64,18 @@ public abstract class Client implements Runnable {
 	 */
 	public void sendDataRequest(int data) {
 
-		DataBlock requestData = new DataBlock(data);
+		boolean cached;
+		synchronized (getCache()) {
+//			A hit makes the block the most recently used
+			cached = getCache().touch(data);
+		}
 //		Send request if local cache doesn't have data
-		if (!getCache().containsKey(requestData)) {
+		if (!cached) {
 //			System.out.println("Client " + getId() + " sending request for " + data);
 			proxy.receiveDataRequest(getId(), data);
 		} else {
 //			Data is present in the local cache. So, count a cache hit
-			proxy.hitOccured();
+			proxy.getMetrics().increment(Metric.LocalHits, getId() - 1);
 		}
 		
 	}
@@ -77,88 +83,67 @@ public abstract class Client implements Runnable {
 	public abstract void receiveData(DataBlock dataBlock);
 	
 	/**
-	 * Checks the cache size and adds new datablock to it. If the cache is full it removes the head of cache.
+	 * Adds new datablock to the cache. If the cache is full it removes the block picked by the replacement policy.
 	 */
 	protected DataBlock addDataToCache(DataBlock dataBlock) {
-		DataBlock head = null;
-		if (!(getCache().size() < getCacheSize())) {
-//			head = getCache().poll();
-//			getCache().add(dataBlock);
-			DataBlock[] blocks = new DataBlock[getCache().size()];
-			getCache().keySet().toArray(blocks);
-			if (blocks.length > 0) {
-				head = blocks[0];
-				getCache().remove(head);
-			}
+		DataBlock head = getCache().put(dataBlock);
+		if (head != null) {
+			removeFromProxy(head.getData());
 		}
-		getCache().put(dataBlock, dataBlock.getData());
 //		System.out.println("Added data to cache");
 		return head;
 	}
 	
 	/**
-	 * Adding singlet to cache using a modified replacement algorithm
-	 * Step 1: It first iterates backwards (reverse insertion order) to discard the last duplicated block
-	 * Step 2: If there are no duplicated blocks, then it discards the oldest recirculating block with fewest recirculation count
+	 * Adding singlet to cache. The replacement policy picks the victim, which
+	 * is discarded rather than forwarded to prevent a ripple effect
 	 * @param singlet
+	 * @return True if the singlet was admitted. False if it is already cached
 	 */
-	protected void addSingletToCache(DataBlock singlet) {
-		boolean discarded = false;
-		ListIterator<DataBlock> iter = new ArrayList<DataBlock>(getCache().keySet()).listIterator(getCache().size());
-		while(iter.hasPrevious()) {
-			DataBlock currentBlock = iter.previous();
-			if (currentBlock.getAccessCount() > 0) {
-				iter.remove();
-				discarded = true;
-				break;
-			}
+	protected boolean addSingletToCache(DataBlock singlet) {
+		if (getCache().contains(singlet.getData())) {
+			return false;
 		}
-		
-		if (!discarded) {
-			int leastRecirculationCount = DataBlock.RECIRCULATION_CONST;
-			DataBlock[] blocks = new DataBlock[getCache().size()];
-			getCache().keySet().toArray(blocks);
-			DataBlock discardingBlock = blocks[blocks.length - 1];
-			iter =  new ArrayList<DataBlock>(getCache().keySet()).listIterator(getCache().size());
-			
-			while (iter.hasPrevious()) {
-				DataBlock currentBlock = iter.previous();
-				if (currentBlock.getRecirculationCount() < leastRecirculationCount) {
-					leastRecirculationCount = currentBlock.getRecirculationCount();
-					discardingBlock = currentBlock;
-				}
-			}
-			
-			getCache().remove(discardingBlock);
+		DataBlock discarded = getCache().put(singlet);
+		if (discarded != null) {
+			removeFromProxy(discarded.getData());
 		}
-		getCache().put(singlet, singlet.getData());
+		return getCache().contains(singlet.getData());
+	}
+	
+	/**
+	 * Removes a block evicted from the cache from its bloom filter in proxy
+	 * @param evictedData
+	 */
+	protected void removeFromProxy(int evictedData) {
+		proxy.removeDataFromBloomFilter(getId(), evictedData);
 	}
 	
 	public abstract void addData(List<Integer> data);
 	
 	/**
-	 * Forwards data to requested client
+	 * Forwards data to requested client. The block is looked up and copied
+	 * under the cache lock, and delivered after the lock is released so a
+	 * client never holds its cache while the requesting client fills its own.
 	 * @param clientId
 	 * @param data
 	 * @return True if the data has been successfully forwarded. False otherwise.
 	 */
 	public boolean forwardDataRequest(int clientId, int data) {
-		DataBlock forwardData = new DataBlock(data);
+		DataBlock forwardBlock = null;
 //		Forward forward = new Forward(clientId, forwardData);
 		
-		if (getCache().containsKey(forwardData)) {
+		synchronized (getCache()) {
+//			Increments the accessCount and resets the recirculationCount
+			forwardBlock = getCache().serve(data);
+		}
+		
+		if (forwardBlock != null) {
 //			System.out.println("Client " + getId() + " forwarding data " + data + " to client " + (clientId + 1));
-//			proxy.hitOccured();
-//			dueResponses.add(forward);
-//			Increment the accessCount
-			DataBlock localBlock = getBlock(data);
-			localBlock.setAccessCount(localBlock.getAccessCount() + 1);
-			localBlock.setRecirculationCount(DataBlock.RECIRCULATION_CONST);
-			clients[clientId].receiveData((DataBlock)localBlock.clone());
+			clients[clientId].receiveData(forwardBlock);
 			return true;
 		} else {
 //			System.out.println("Miss occured on client: " + getId() + " requested client: "+ (clientId + 1) + " for data: " + data);
-//			proxy.missOccured(getId(), clientId, data);
 			return false;
 		}
 		
@@ -182,40 +167,21 @@ public abstract class Client implements Runnable {
 	 * Adds all the cache data to its corresponding Bloom filter in proxy
 	 */
 	public void updateAllCacheToProxy() {
-		Iterator<DataBlock> iter = cache.keySet().iterator();
-		while(iter.hasNext()) {
+		for (int slot = cache.getOldest(); slot != BlockCache.NONE; slot = cache.getNewer(slot)) {
 			int importance = 0;
-			DataBlock dataBlock = iter.next();
 			
 			switch (getBloomFilterType()) {
 			case IBF:
-				importance = dataBlock.getAccessCount();
+				importance = cache.getAccessCount(slot);
 				break;
 			default:
 				importance = 0;
 			}
 			
-			proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
+			proxy.addDataToBloomFilter(getId(), cache.getData(slot), importance);
 		}
 	}
 	
-	/**
-	 * Returns a datablock with given data
-	 * @param data
-	 * @return
-	 */
-	protected DataBlock getBlock(int data) {
-		Iterator<DataBlock> iter = getCache().keySet().iterator();
-		
-		while(iter.hasNext()) {
-			DataBlock currentBlock = iter.next();
-			if (currentBlock.getData() == data) {
-				return currentBlock;
-			}
-		}
-		return null;
-	}
-	
 	/**
 	 * @return the id
 	 */
@@ -242,25 +208,62 @@ public abstract class Client implements Runnable {
 	 */
 	public void setCacheSize(int cacheSize) {
 		this.cacheSize = cacheSize;
+		if (cache != null && cache.getCapacity() != cacheSize) {
+			rebuildCache();
+		}
+	}
+
+	/**
+	 * @return the replacementPolicyType
+	 */
+	public ReplacementPolicyType getReplacementPolicyType() {
+		return replacementPolicyType;
+	}
+
+	/**
+	 * Sets the policy picking the blocks evicted from the cache. Must be set
+	 * before the cache is filled, the blocks already cached are kept but the
+	 * history of the old policy is lost.
+	 * @param replacementPolicyType the replacementPolicyType to set
+	 */
+	public void setReplacementPolicyType(ReplacementPolicyType replacementPolicyType) {
+		if (this.replacementPolicyType != replacementPolicyType) {
+			this.replacementPolicyType = replacementPolicyType;
+			if (cache != null) {
+				rebuildCache();
+			}
+		}
 	}
 
 	/**
 	 * @return the cache
 	 */
-	public LinkedHashMap<DataBlock, Integer> getCache() {
+	public BlockCache getCache() {
 		return cache;
 	}
 
 	/**
 	 * @param cache the cache to set
 	 */
-	public void setCache(LinkedHashMap<DataBlock, Integer> cache) {
+	public void setCache(BlockCache cache) {
 		this.cache = cache;
 	}
 
 	private void initializeCache() {
 //		cache = new PriorityQueue<DataBlock>(cacheSize, new DBComparator());
-		cache = new LinkedHashMap<DataBlock, Integer>(cacheSize);
+		cache = new BlockCache(cacheSize, ReplacementPolicyFactory.createPolicy(replacementPolicyType));
+	}
+
+	/**
+	 * Moves the blocks to a new cache of cacheSize with a new policy. The
+	 * most recently used blocks that fit are kept.
+	 */
+	private void rebuildCache() {
+		BlockCache old = cache;
+		initializeCache();
+		for (int slot = old.getOldest(); slot != BlockCache.NONE; slot = old.getNewer(slot)) {
+			cache.put(old.toBlock(slot));
+		}
 	}
 
 	/**
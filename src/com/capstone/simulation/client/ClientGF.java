@@ -55,19 +55,24 @@ public class ClientGF extends Client{
 		DataBlock removedBlock = null;
 		int importance = 0;
 		synchronized (getCache()) {
+//			A block already cached is in the filter
+			boolean cached = getCache().contains(dataBlock.getData());
 			removedBlock = addDataToCache(dataBlock);
 //			System.out.println("Removed block: " + removedBlock.getData());
-		}
+			if (cached || !getCache().contains(dataBlock.getData())) {
+				return;
+			}
 
-		switch (getBloomFilterType()) {
-		case IBF:
-			importance = dataBlock.getAccessCount();
-			break;
-		default:
-			importance = 0;
-			break;
+			switch (getBloomFilterType()) {
+			case IBF:
+				importance = dataBlock.getAccessCount();
+				break;
+			default:
+				importance = 0;
+				break;
+			}
+			proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
 		}
-		proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
 	}
 	
 	/**
@@ -79,7 +84,7 @@ public class ClientGF extends Client{
 		for(int dataValue : data) {
 			DataBlock block = new DataBlock(dataValue);
 //			getCache().add(block);
-			getCache().put(block, dataValue);
+			getCache().put(block);
 		}
 	}
 }
@@ -50,7 +50,12 @@ public class ClientKSequence extends Client {
 		
 		synchronized(getCache()) {
 //			System.out.println("Receiving client: " + this.getId() + " data: " + dataBlock.getData());
+//			A block already cached is in the filter
+			boolean cached = getCache().contains(dataBlock.getData());
 			removedBlock = super.addDataToCache(dataBlock);
+			if (!cached && getCache().contains(dataBlock.getData())) {
+				addDataToProxy(dataBlock);
+			}
 		}
 		
 //		Add datablock to sequenceList if it forms a new sequence in cache
@@ -68,7 +73,7 @@ public class ClientKSequence extends Client {
 		}
 		if (removedBlock != null) {
 //			Check if removedBlock is a singlet
-			ArrayList<DataBlock> blocksInSequence = getDataBlockSequence(removedBlock);
+			ArrayList<DataBlock> blocksInSequence = getDataBlockSequence(removedBlock.getData());
 			
 			int sequenceOccurrence = proxy.getSequenceOccurrence(removedBlock.getData());
 			
@@ -93,7 +98,13 @@ public class ClientKSequence extends Client {
 //				Block part of an incomplete sequence will be discarded
 			}
 		}
-		
+	}
+	
+	/**
+	 * Adds a block admitted to the cache to the bloom filter of the client in proxy
+	 * @param dataBlock
+	 */
+	private void addDataToProxy(DataBlock dataBlock) {
 		int importance = 0;
 		switch (getBloomFilterType()) {
 		case IBF:
@@ -118,9 +129,17 @@ public class ClientKSequence extends Client {
 			}
 //			System.out.println();
 			
-			List<Integer> subSequence = getSubSequence(singletList.get(0));
-			for(DataBlock block : singletList) {
-				super.addDataToCache(block);
+			List<Integer> subSequence;
+			synchronized (getCache()) {
+				subSequence = getSubSequence(singletList.get(0));
+				for(DataBlock block : singletList) {
+//					A block already cached is in the filter. A new one is counted before a later block of the list can evict it
+					boolean cached = getCache().contains(block.getData());
+					super.addDataToCache(block);
+					if (!cached && getCache().contains(block.getData())) {
+						addDataToProxy(block);
+					}
+				}
 			}
 			
 //			Check how many datablocks of the singletList is already present in the cache
@@ -138,28 +157,18 @@ public class ClientKSequence extends Client {
 		}
 	}
 	
-	@Override
-	protected DataBlock addDataToCache(DataBlock dataBlock) {
-//		System.out.println("AddDataToCache in KSequence");
-		DataBlock head = null;
-		getCache();
-		return head;
-	}
-	
 	/**
 	 * Checks if a block is part of a complete sequence in the cache 
-	 * @param block
+	 * @param data
 	 * @return True if block is part of a complete sequence. False otherwise
 	 */
-	private ArrayList<DataBlock> getDataBlockSequence (DataBlock block) {
-		int data = block.getData();
+	private ArrayList<DataBlock> getDataBlockSequence (int data) {
 		int positionInSequence = data % getK();
 		ArrayList<DataBlock> list = new ArrayList<DataBlock>();
 		for (int i = 0; i < getK(); i++) {
 			int currentBlockData = data + i - positionInSequence + 1;
-			DataBlock currentBlock = new DataBlock(currentBlockData);
-			if (getCache().containsKey(currentBlock)) {
-				list.add(currentBlock);
+			if (getCache().contains(currentBlockData)) {
+				list.add(new DataBlock(currentBlockData));
 			}
 		}
 		return list;
@@ -191,7 +200,7 @@ public class ClientKSequence extends Client {
 
 		int firstBlockData = firstBlock.getData();
 		for (int i = firstBlockData; i < firstBlockData + getK(); i++) {
-			if (getCache().containsValue(i)) {
+			if (getCache().contains(i)) {
 				list.add(i);
 			}
 		}
@@ -201,8 +210,7 @@ public class ClientKSequence extends Client {
 	@Override
 	public void addData(List<Integer> data) {
 		for(int dataValue : data) {
-			DataBlock block = new DataBlock(dataValue);
-			getCache().put(block, dataValue);
+			getCache().put(new DataBlock(dataValue));
 //			proxy.addDataToBloomFilter(getId(), dataValue);
 			proxy.updateSingletMap(dataValue, true);
 		}
@@ -230,7 +238,7 @@ public class ClientKSequence extends Client {
 		if (positionInSequence == 0) {
 			for (int i = getK(); i >= 1; i--) {
 				int currentBlockData = block - i + 1;
-				if (!getCache().containsValue(currentBlockData)) {
+				if (!getCache().contains(currentBlockData)) {
 					sequencePresent = false;
 					break;
 				}
@@ -238,7 +246,7 @@ public class ClientKSequence extends Client {
 		} else {
 			for (int i = 0; i < getK(); i++) {
 				int currentBlockData = block + i - positionInSequence + 1;
-				if (!getCache().containsValue(currentBlockData)) {
+				if (!getCache().contains(currentBlockData)) {
 					sequencePresent = false;
 					break;
 				}
@@ -251,12 +259,16 @@ public class ClientKSequence extends Client {
 	@Override
 	public boolean forwardDataRequest(int clientId, int data) {
 //		System.out.println("Entered forwardDataRequest in KSequence");
-		DataBlock forwardData = new DataBlock(data);
+		ArrayList<DataBlock> blocksInSequence = null;
+		
+		synchronized (getCache()) {
+			if (getCache().touch(data)) {
+				blocksInSequence = getDataBlockSequence(data);
+			}
+		}
 		
-		if (getCache().containsKey(forwardData)) {
+		if (blocksInSequence != null) {
 //			boolean sequencePresent = isSequencePresentForBlock(data);
-			DataBlock localBlock = super.getBlock(data);
-			ArrayList<DataBlock> blocksInSequence = getDataBlockSequence(localBlock);
 			((ClientKSequence)getClients()[clientId]).receiveForward(blocksInSequence);
 //			if (sequencePresent) {
 //				ArrayList<DataBlock> blocksInSequence = getDataBlockSequence(localBlock);
@@ -1,11 +1,9 @@
 package com.capstone.simulation.client;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.BrokenBarrierException;
@@ -19,7 +17,6 @@ public class ClientMyAlgo extends Client{
 	private LinkedList<Forward> singletForwardsQueue;
 	private Map<Forward, Forward> singletMapping; // Mapping for singlet and its victim (in that order)
 	private Random random;
-	private int upperBound;
 
 	
 	public ClientMyAlgo(int id, int cacheSize, CyclicBarrier barrier) {
@@ -71,21 +68,36 @@ public class ClientMyAlgo extends Client{
 	public void receiveData(DataBlock dataBlock) {
 		System.out.println("Receiving client: " + this.getId() + " data: " + dataBlock.getData());
 		DataBlock removedBlock = null;
-		boolean receivedSinglet = false;
 		synchronized (getCache()) {
 			System.out.println("Received datablock recirculation count: " + dataBlock.getRecirculationCount());
+			boolean admitted;
 //			Checking if received block is a singlet
 			if (dataBlock.getRecirculationCount() != DataBlock.RECIRCULATION_CONST) {
 				// If received block is a singlet, prevent ripple effect by
 				// calling modified replacement algorithm
-				receivedSinglet = true;
-				addSingletToCache(dataBlock);
+				admitted = addSingletToCache(dataBlock);
 			} else {
+//				A block already cached is in the filter and the singlet map
+				boolean cached = getCache().contains(dataBlock.getData());
 				removedBlock = addDataToCache(dataBlock);
-				if (removedBlock == null) {
-					removedBlock = super.addDataToCache(dataBlock);
+				admitted = !cached && getCache().contains(dataBlock.getData());
+				if (admitted) {
+					proxy.updateSingletMap(dataBlock.getData(), true); // Update occurrence count of dataBlock in singlet map
 				}
 			}
+			
+			if (admitted) {
+				int importance = 0;
+				switch (getBloomFilterType()) {
+				case IBF:
+					importance = dataBlock.getAccessCount();
+					break;
+				default:
+					importance = 0;
+					break;
+				}
+				proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
+			}
 		}
 		
 		if (removedBlock != null) {
@@ -136,21 +148,7 @@ public class ClientMyAlgo extends Client{
 			}
 			
 		}
-		
-		if (!receivedSinglet) {
-			proxy.updateSingletMap(dataBlock.getData(), true); // Update occurrence count of dataBlock in singlet map
-		}
-		
-		int importance = 0;
-		switch (getBloomFilterType()) {
-		case IBF:
-			importance = dataBlock.getAccessCount();
-			break;
-		default:
-			importance = 0;
-			break;
-		}
-		proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
+
 //		System.out.println("Client " + getId() + " exited receive data for data: " + dataBlock.getData());
 	}
 	
@@ -158,12 +156,17 @@ public class ClientMyAlgo extends Client{
 	 * Replaces the replace object with singlet
 	 * @param singlet
 	 * @param replace Most occuring datablock
-	 * @return True if replacement is successful. False otherwise
+	 * @return True if replacement is successful or the singlet is already cached. False otherwise
 	 */
 	public boolean receiveSinglet(DataBlock singlet, DataBlock replace) {
 		synchronized (getCache()) {
-			if (getCache().remove(replace) != null) {
-				getCache().put(singlet, singlet.getData());
+//			A singlet already cached here is kept as is, nothing is replaced
+			if (getCache().contains(singlet.getData())) {
+				return true;
+			}
+			if (getCache().remove(replace.getData())) {
+				removeFromProxy(replace.getData());
+				getCache().put(singlet);
 				System.out.println("Replaced data: " + replace.getData() + " with data: "+ singlet.getData());
 //				Update singlet map for removed block
 //				No update for singlet
@@ -191,8 +194,7 @@ public class ClientMyAlgo extends Client{
 	@Override
 	public void addData(List<Integer> data) {
 		for(int dataValue : data) {
-			DataBlock block = new DataBlock(dataValue);
-			getCache().put(block, dataValue);
+			getCache().put(new DataBlock(dataValue));
 			proxy.updateSingletMap(dataValue, true);
 		}
 	}
@@ -225,50 +227,4 @@ public class ClientMyAlgo extends Client{
 		this.singletMapping = singletMapping;
 	}
 
-	/**
-	 * @return the upperBound
-	 */
-	public int getUpperBound() {
-		return upperBound;
-	}
-
-	/**
-	 * @param upperBound the upperBound to set
-	 */
-	public void setUpperBound(int upperBound) {
-		this.upperBound = upperBound;
-	}
-	
-	@Override
-	protected DataBlock addDataToCache(DataBlock dataBlock) {
-		System.out.println("AddDataToCache in MyAlgo");
-		DataBlock head = null;
-		boolean discarded = false;
-		if (!(getCache().size() < getCacheSize())) {
-			ListIterator<DataBlock> iter = new ArrayList<DataBlock>(getCache().keySet()).listIterator(getCache().size());
-			while(iter.hasPrevious()) {
-				DataBlock currentBlock = iter.previous();
-				int occurrenceCount = proxy.getDataOccurrenceCount(currentBlock.getData());
-				if (occurrenceCount > upperBound) {
-					System.out.println("Occurance count of current block: " +currentBlock.getData() + " = " + occurrenceCount);
-//					Remove datablock from local cache
-					iter.remove();
-					head = currentBlock;
-//					proxy.updateSingletMap(currentBlock.getData(), false); //Decrements occurrence count in singlet map
-					discarded = true;
-					if (head != null) {
-						System.out.println("AddDataToCache: MyAlgo returned: " + head.getData());
-					}
-					return head;
-				}
-			}
-			
-			if (discarded) {
-				getCache().put(dataBlock, dataBlock.getData());
-			}
-		}
-		
-		return head;
-	}
-
 }
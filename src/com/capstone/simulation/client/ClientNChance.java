@@ -56,16 +56,38 @@ public class ClientNChance extends Client {
 		DataBlock removedBlock = null;
 		synchronized (getCache()) {
 //			System.out.println("Receiving client: " + this.getId() + " data: " + dataBlock.getData());
+			boolean admitted;
 
 			// Checking if received block is a singlet
 			if (dataBlock.getRecirculationCount() != DataBlock.RECIRCULATION_CONST) {
 				// If received block is a singlet, prevent ripple effect by
 				// calling modified replacement algorithm
-				addSingletToCache(dataBlock);
+				admitted = addSingletToCache(dataBlock);
 			} else {
+				// A block already cached is in the filter and the singlet map
+				boolean cached = getCache().contains(dataBlock.getData());
 				removedBlock = addDataToCache(dataBlock);
+				admitted = !cached && getCache().contains(dataBlock.getData());
+			}
+			
+			if (admitted) {
+				int importance = 0;
+				switch (getBloomFilterType()) {
+				case IBF:
+					importance = dataBlock.getAccessCount();
+					break;
+				default:
+					importance = 0;
+					break;
+				}
+				proxy.updateSingletMap(dataBlock.getData(), true); // Update occurrence
+																	// count of
+																	// dataBlock in
+																	// singlet map
+				proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
 			}
 		}
+		
 		if (removedBlock != null) {
 			// Check if removedBlock is a singlet
 			boolean singlet = proxy.isDataSinglet(getId(), removedBlock.getData());
@@ -101,28 +123,13 @@ public class ClientNChance extends Client {
 
 		}
 
-		int importance = 0;
-		switch (getBloomFilterType()) {
-		case IBF:
-			importance = dataBlock.getAccessCount();
-			break;
-		default:
-			importance = 0;
-			break;
-		}
-		proxy.updateSingletMap(dataBlock.getData(), true); // Update occurrence
-															// count of
-															// dataBlock in
-															// singlet map
-		proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
 		// System.out.println("Exited receive data");
 	}
 	
 	@Override
 	public void addData(List<Integer> data) {
 		for(int dataValue : data) {
-			DataBlock block = new DataBlock(dataValue);
-			getCache().put(block, dataValue);
+			getCache().put(new DataBlock(dataValue));
 //			System.out.println("");
 			proxy.updateSingletMap(dataValue, true);
 		}
@@ -70,12 +70,31 @@ public class ClientRH extends Client{
 		DataBlock removedBlock = null;
 		synchronized (getCache()) {
 //			Checking if received block is a singlet
+			boolean admitted;
 			if (dataBlock.getRecirculationCount() != DataBlock.RECIRCULATION_CONST) {
 				// If received block is a singlet, prevent ripple effect by
 				// calling modified replacement algorithm
-				addSingletToCache(dataBlock);
+				admitted = addSingletToCache(dataBlock);
 			} else {
+//				A block already cached is in the filter and the singlet map
+				boolean cached = getCache().contains(dataBlock.getData());
 				removedBlock = addDataToCache(dataBlock);
+				admitted = !cached && getCache().contains(dataBlock.getData());
+			}
+			
+			if (admitted) {
+				proxy.updateSingletMap(dataBlock.getData(), true); // Update occurrence count of dataBlock in singlet map
+				
+				int importance = 0;
+				switch (getBloomFilterType()) {
+				case IBF:
+					importance = dataBlock.getAccessCount();
+					break;
+				default:
+					importance = 0;
+					break;
+				}
+				proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
 			}
 		}
 		
@@ -130,18 +149,6 @@ public class ClientRH extends Client{
 			
 		}
 		
-		proxy.updateSingletMap(dataBlock.getData(), true); // Update occurrence count of dataBlock in singlet map
-		
-		int importance = 0;
-		switch (getBloomFilterType()) {
-		case IBF:
-			importance = dataBlock.getAccessCount();
-			break;
-		default:
-			importance = 0;
-			break;
-		}
-		proxy.addDataToBloomFilter(getId(), dataBlock.getData(), importance);
 //		System.out.println("Client " + getId() + " exited receive data for data: " + dataBlock.getData());
 	}
 	
@@ -149,12 +156,17 @@ public class ClientRH extends Client{
 	 * Replaces the replace object with singlet
 	 * @param singlet
 	 * @param replace Most occurring datablock
-	 * @return True if replacement is successful. False otherwise
+	 * @return True if replacement is successful or the singlet is already cached. False otherwise
 	 */
 	public boolean receiveSinglet(DataBlock singlet, DataBlock replace) {
 		synchronized (getCache()) {
-			if (getCache().remove(replace) != null) {
-				getCache().put(singlet, singlet.getData());
+//			A singlet already cached here is kept as is, nothing is replaced
+			if (getCache().contains(singlet.getData())) {
+				return true;
+			}
+			if (getCache().remove(replace.getData())) {
+				removeFromProxy(replace.getData());
+				getCache().put(singlet);
 //				System.out.println("Replaced data: " + replace.getData() + " with data: "+ singlet.getData());
 //				Update singlet map for removed block
 //				No update for singlet
@@ -183,7 +195,7 @@ public class ClientRH extends Client{
 		for(int dataValue : data) {
 			DataBlock block = new DataBlock(dataValue);
 //			getCache().add(block);
-			getCache().put(block, dataValue);
+			getCache().put(block);
 //			proxy.addDataToBloomFilter(getId(), dataValue);
 			proxy.updateSingletMap(dataValue, true);
 		}
@@ -11,14 +11,13 @@ public class DataBlock implements Cloneable{
 	private int data;
 	private int accessCount;
 	private int recirculationCount;
-	private long timeStamp;
+	private long timeStamp; // Logical time the block was cached, set by the client cache
 	public static final int RECIRCULATION_CONST = 2;
 
 	public DataBlock(int data) {
 		this.setData(data);
 		this.setAccessCount(0);
 		this.setRecirculationCount(RECIRCULATION_CONST);
-		this.setTimeStamp(System.currentTimeMillis());
 	}
 	/**
 	 * @return the data
@@ -0,0 +1,136 @@
+package com.capstone.simulation.driver;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.capstone.simulation.metrics.Metric;
+import com.capstone.simulation.metrics.MetricsSnapshot;
+import com.capstone.simulation.utility.ResultsFormat;
+
+/**
+ * This class appends a line per finished experiment to a results file, as
+ * CSV or as JSON lines. The file is flushed after every line, so the points
+ * already written survive an interrupted run. The points found in an
+ * existing file are reported as completed, and a line that was cut off is
+ * dropped.
+ */
+public class ResultsWriter {
+
+	private static final String CSV_HEADER = "cell,clients,cacheSize,algorithm,bloomFilterType,hashFunctions,workload,replacementPolicy,"
+			+ "hits,misses,diskAccesses,localHits,remoteHits,wallTimeMillis,allocatedBytes";
+	private static final Pattern JSON_CELL = Pattern.compile("\"cell\":\"([^\"]*)\"");
+
+	private ResultsFormat format;
+	private PrintWriter writer;
+	private Set<String> completed = new HashSet<String>();
+
+	/**
+	 * Constructor
+	 * @param fileName
+	 * @param format
+	 * @throws IOException
+	 */
+	public ResultsWriter(String fileName, ResultsFormat format) throws IOException {
+		this.format = format;
+		File file = new File(fileName);
+		boolean empty = true;
+		if (file.exists() && file.length() > 0) {
+			dropPartialLine(file);
+			for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+				String key = getKey(line);
+				if (key != null) {
+					completed.add(key);
+				}
+				empty = empty && line.isEmpty();
+			}
+		}
+		writer = new PrintWriter(new FileWriter(file, true));
+		if (empty && format == ResultsFormat.CSV) {
+			writer.println(CSV_HEADER);
+			writer.flush();
+		}
+	}
+
+	/**
+	 * @param point
+	 * @return true if the file already has the results of the point
+	 */
+	public boolean isCompleted(SweepPoint point) {
+		return completed.contains(point.getKey());
+	}
+
+	/**
+	 * Appends the results of a finished point
+	 * @param point
+	 * @param metrics
+	 * @param wallTime milliseconds the clients ran
+	 * @param allocatedBytes bytes the experiment allocated, 0 when the JVM can't measure it
+	 */
+	public synchronized void write(SweepPoint point, MetricsSnapshot metrics, long wallTime, long allocatedBytes) {
+		switch (format) {
+		case JSON:
+			writer.println("{\"cell\":\"" + point.getKey() + "\",\"clients\":" + point.getClientSize()
+					+ ",\"cacheSize\":" + point.getCacheSize() + ",\"algorithm\":\"" + point.getAlgorithm()
+					+ "\",\"bloomFilterType\":\"" + point.getBloomFilterType() + "\",\"hashFunctions\":" + point.getHashFunctionsCount()
+					+ ",\"workload\":\"" + point.getWorkload() + "\",\"replacementPolicy\":\"" + point.getReplacementPolicyType()
+					+ "\",\"hits\":" + metrics.getHits()
+					+ ",\"misses\":" + metrics.getTotal(Metric.FalseForwards) + ",\"diskAccesses\":" + metrics.getTotal(Metric.DiskAccesses)
+					+ ",\"localHits\":" + metrics.getTotal(Metric.LocalHits) + ",\"remoteHits\":" + metrics.getTotal(Metric.RemoteHits)
+					+ ",\"wallTimeMillis\":" + wallTime + ",\"allocatedBytes\":" + allocatedBytes + "}");
+			break;
+		case CSV:
+		default:
+			writer.println(point.getKey() + "," + point.getClientSize() + "," + point.getCacheSize() + "," + point.getAlgorithm()
+					+ "," + point.getBloomFilterType() + "," + point.getHashFunctionsCount() + "," + point.getWorkload()
+					+ "," + point.getReplacementPolicyType()
+					+ "," + metrics.getHits() + "," + metrics.getTotal(Metric.FalseForwards) + "," + metrics.getTotal(Metric.DiskAccesses)
+					+ "," + metrics.getTotal(Metric.LocalHits) + "," + metrics.getTotal(Metric.RemoteHits)
+					+ "," + wallTime + "," + allocatedBytes);
+			break;
+		}
+		writer.flush();
+		completed.add(point.getKey());
+	}
+
+	public synchronized void close() {
+		writer.close();
+	}
+
+	private String getKey(String line) {
+		switch (format) {
+		case JSON:
+			Matcher matcher = JSON_CELL.matcher(line);
+			return matcher.find() ? matcher.group(1) : null;
+		case CSV:
+		default:
+			int comma = line.indexOf(',');
+			return comma <= 0 || line.startsWith("cell,") ? null : line.substring(0, comma);
+		}
+	}
+
+	/**
+	 * Truncates the file after its last complete line
+	 */
+	private static void dropPartialLine(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			long end = raf.length();
+			while (end > 0) {
+				raf.seek(end - 1);
+				if (raf.read() == '\n') {
+					break;
+				}
+				end--;
+			}
+			raf.setLength(end);
+		}
+	}
+}
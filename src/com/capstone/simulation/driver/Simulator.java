@@ -1,10 +1,14 @@
 package com.capstone.simulation.driver;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -16,7 +20,16 @@ import java.util.Random;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.capstone.simulation.client.Client;
 import com.capstone.simulation.client.ClientGF;
@@ -24,13 +37,26 @@ import com.capstone.simulation.client.ClientKSequence;
 import com.capstone.simulation.client.ClientMyAlgo;
 import com.capstone.simulation.client.ClientNChance;
 import com.capstone.simulation.client.ClientRH;
+import com.capstone.simulation.metrics.Metric;
+import com.capstone.simulation.metrics.MetricsRegistry;
+import com.capstone.simulation.metrics.MetricsSnapshot;
+import com.capstone.simulation.proxy.HintCache;
 import com.capstone.simulation.proxy.Proxy;
 import com.capstone.simulation.proxy.ProxyFactory;
+import com.capstone.simulation.proxy.ProxyIBF;
 import com.capstone.simulation.server.Server;
 import com.capstone.simulation.utility.Algorithm;
+import com.capstone.simulation.utility.BloomFilterSizing;
 import com.capstone.simulation.utility.BloomFilterType;
+import com.capstone.simulation.utility.CandidateSelection;
 import com.capstone.simulation.utility.ExperimentVariable;
+import com.capstone.simulation.utility.Hash;
+import com.capstone.simulation.utility.HashFamily;
+import com.capstone.simulation.utility.HashIndex;
+import com.capstone.simulation.utility.ReplacementPolicyType;
+import com.capstone.simulation.utility.ResultsFormat;
 import com.capstone.simulation.utility.Strings;
+import com.capstone.simulation.utility.Workload;
 
 /**
  * This class takes a properties file as input Instantiates client objects,
@@ -39,7 +65,7 @@ import com.capstone.simulation.utility.Strings;
  * @author Pavan Kumar
  *
  */
-public class Simulator {
+public class Simulator implements Cloneable {
 	
 	private final int HASH_FUNCTIONS_COUNT = 3;
 	
@@ -76,6 +102,31 @@ public class Simulator {
 	private Server server;
 	private Proxy proxy;
 	private float requestSizeFactor;
+	private int ibfDecayInterval; // Number of inserts an IBF decay is amortized across
+	private BloomFilterSizing bloomFilterSizing;
+	private double targetFalsePositiveRate; // Used when bloom filters are sized for a false positive rate
+	private HashFamily hashFamily;
+	private long metricsInterval; // Milliseconds between metrics snapshots printed during a run, 0 for none
+	private boolean precomputeHashes; // Hash all the data blocks once instead of on every lookup
+	private int hashIndexMaxSize; // Largest disk size hashes are precomputed for
+	private int hintCacheSize; // Number of last serving clients the proxy remembers, 0 for none
+	private CandidateSelection candidateSelection; // Client the proxy forwards to when several filters match
+	private ReplacementPolicyType replacementPolicyType; // Picks the blocks evicted from the client caches
+	private int sweepParallelism; // Sweep points run at the same time, 0 for one per processor
+	private boolean shareWarmState; // Points with the same caches and requests start from one preload
+	private ConcurrentHashMap<String, CompletableFuture<WarmState>> warmStates; // Shared by all the sweep points
+	private ConcurrentHashMap<String, AtomicInteger> sharedStateUses; // Points left to use each shared warm state or filter
+	private Workload workload;
+	private List<Algorithm> gridAlgorithms;
+	private List<BloomFilterType> gridBloomFilterTypes;
+	private List<Integer> gridHashFunctionsCounts; // Empty to derive the count from the filter sizing
+	private List<Workload> gridWorkloads;
+	private String resultsFile; // Machine readable results, none when not set
+	private ResultsFormat resultsFormat;
+	private ResultsWriter resultsWriter;
+	private AtomicLong clientAllocatedBytes; // Bytes allocated by the client threads of the running sweep point
+	private Hash hash; // Hash of the running sweep point
+	private PrintStream out = System.out; // Results of the running sweep point
 	private CyclicBarrier barrier;
 	private int k;
 
@@ -89,6 +140,7 @@ public class Simulator {
 		String configFile = args[0];
 
 		simulator.loadProperties(configFile);
+		simulator.buildHashIndex();
 //		simulator.loadTraceData();
 		simulator.beginExperiment(simulator.clientCount, simulator.cacheSize, simulator.algorithm,
 				simulator.experimentVariable);
@@ -139,6 +191,47 @@ public class Simulator {
 			requestSizeFactor = Float.parseFloat(configProperties.containsKey(Strings.requestSizeFactor)
 					? configProperties.getProperty(Strings.requestSizeFactor) : Strings.one);
 
+			ibfDecayInterval = Integer.parseInt(configProperties.containsKey(Strings.ibfDecayInterval)
+					? configProperties.getProperty(Strings.ibfDecayInterval) : Strings.one);
+
+			bloomFilterSizing = BloomFilterSizing.valueOf(configProperties.containsKey(Strings.bloomFilterSizing)
+					? configProperties.getProperty(Strings.bloomFilterSizing) : BloomFilterSizing.DiskSize.name());
+			targetFalsePositiveRate = Double.parseDouble(configProperties.containsKey(Strings.targetFalsePositiveRate)
+					? configProperties.getProperty(Strings.targetFalsePositiveRate) : Strings.defaultFalsePositiveRate);
+
+			hashFamily = HashFamily.valueOf(configProperties.containsKey(Strings.hashFamily)
+					? configProperties.getProperty(Strings.hashFamily) : HashFamily.JenkinsMurmur.name());
+			metricsInterval = Long.parseLong(configProperties.containsKey(Strings.metricsInterval)
+					? configProperties.getProperty(Strings.metricsInterval) : Strings.zero);
+			precomputeHashes = Boolean.parseBoolean(configProperties.getProperty(Strings.precomputeHashes));
+			hashIndexMaxSize = Integer.parseInt(configProperties.containsKey(Strings.hashIndexMaxSize)
+					? configProperties.getProperty(Strings.hashIndexMaxSize) : Strings.defaultHashIndexMaxSize);
+			hintCacheSize = Integer.parseInt(configProperties.containsKey(Strings.hintCacheSize)
+					? configProperties.getProperty(Strings.hintCacheSize) : Strings.zero);
+			sweepParallelism = Integer.parseInt(configProperties.containsKey(Strings.sweepParallelism)
+					? configProperties.getProperty(Strings.sweepParallelism) : Strings.one);
+			shareWarmState = Boolean.parseBoolean(configProperties.containsKey(Strings.shareWarmState)
+					? configProperties.getProperty(Strings.shareWarmState) : Boolean.TRUE.toString());
+			candidateSelection = CandidateSelection.valueOf(configProperties.containsKey(Strings.candidateSelection)
+					? configProperties.getProperty(Strings.candidateSelection) : CandidateSelection.LowestIndex.name());
+			replacementPolicyType = ReplacementPolicyType.valueOf(configProperties.containsKey(Strings.replacementPolicy)
+					? configProperties.getProperty(Strings.replacementPolicy) : ReplacementPolicyType.LRU.name());
+
+			workload = Workload.valueOf(configProperties.containsKey(Strings.workload)
+					? configProperties.getProperty(Strings.workload) : Workload.RandomTraceAndCachePerClient.name());
+			gridAlgorithms = getEnumList(configProperties, Strings.gridAlgorithms, Algorithm.class, algorithm);
+			gridBloomFilterTypes = getEnumList(configProperties, Strings.gridBloomFilterTypes, BloomFilterType.class, bloomFilterType);
+			gridWorkloads = getEnumList(configProperties, Strings.gridWorkloads, Workload.class, workload);
+			gridHashFunctionsCounts = new ArrayList<Integer>();
+			for (String count : configProperties.getProperty(Strings.gridHashFunctionsCounts, "").split(",")) {
+				if (!count.trim().isEmpty()) {
+					gridHashFunctionsCounts.add(Integer.parseInt(count.trim()));
+				}
+			}
+			resultsFile = configProperties.getProperty(Strings.resultsFile, "").trim();
+			resultsFormat = ResultsFormat.valueOf(configProperties.containsKey(Strings.resultsFormat)
+					? configProperties.getProperty(Strings.resultsFormat) : ResultsFormat.CSV.name());
+
 			traceFile = configProperties.getProperty(Strings.traceFile);
 		} catch (NumberFormatException nfe) {
 			// TODO Add log here
@@ -154,6 +247,34 @@ public class Simulator {
 	}
 
 	/**
+	 * Reads a comma separated list of enum constants
+	 * @param configProperties
+	 * @param key
+	 * @param type
+	 * @param defaultValue the only element when the key is missing
+	 * @return
+	 */
+	private static <E extends Enum<E>> List<E> getEnumList(Properties configProperties, String key, Class<E> type, E defaultValue) {
+		List<E> values = new ArrayList<E>();
+		for (String value : configProperties.getProperty(key, "").split(",")) {
+			if (!value.trim().isEmpty()) {
+				values.add(Enum.valueOf(type, value.trim()));
+			}
+		}
+		if (values.isEmpty()) {
+			values.add(defaultValue);
+		}
+		return values;
+	}
+
+	/**
+	 * Runs every point of the sweep and prints their results in sweep order.
+	 * Each point runs on its own copy of the simulator, with its own proxy,
+	 * clients and hash, so up to sweepParallelism points run at the same
+	 * time. Points already in the results file are skipped, and every other
+	 * point is appended to it as soon as it finishes. Points that only differ
+	 * in algorithm, filter type or number of hash functions share one
+	 * preload when shareWarmState is set.
 	 * 
 	 * @param clientSize
 	 *            Minimum client size the experiment begins with
@@ -166,62 +287,401 @@ public class Simulator {
 	 */
 	private void beginExperiment(int clientSize, int cacheSize, Algorithm algorithmType,
 			ExperimentVariable experimentVariable) {
-		int currentClientSize = clientSize;
-		int currentCacheSize = cacheSize;
-		boolean doneExperiment = false;
-
-		while (!doneExperiment) {
-
-			k = 5;
-			float bfSize = (float)(HASH_FUNCTIONS_COUNT * diskSize) / LOG_2;
-			initialize(currentClientSize, currentCacheSize, algorithmType);
-//			System.out.println("Setting Bloom filter size to: " + (int)bfSize);
-			proxy.setBloomFilterSize((int)bfSize);
-			proxy.setBloomFilters();
-//			allocateRandomData(currentClientSize, currentCacheSize, diskSize);
-//			allocateUniqueTraceDataUniqueClientsData(currentClientSize, currentCacheSize, diskSize);
-//			allocateTraceDataInAllClients(currentClientSize, currentCacheSize, diskSize);
-//			allocateTraceDataInOneClient(currentClientSize, currentCacheSize, diskSize);
-//			allocateRandomTraceDataRandomClientsData(currentClientSize, currentCacheSize, diskSize);
-			allocateRandomTraceAndCachePerClient(currentClientSize, currentCacheSize, diskSize);
-//			allocateKSequences(currentClientSize, currentCacheSize, diskSize, k);
-//			allocateRiggedKSequences(currentClientSize, currentCacheSize, diskSize, 10);
-//			allocateRiggedKSequences2(currentClientSize, currentCacheSize, diskSize, 10);
-//			allocateRiggedIBFData(currentClientSize, currentCacheSize, diskSize);
-			
-			for (int i = 0; i < currentClientSize; i++) {
-				clients[i].setBloomFilterType(bloomFilterType);
-				clients[i].updateAllCacheToProxy();
+		List<SweepPoint> sweepPoints = getSweepPoints(clientSize, cacheSize, algorithmType, experimentVariable);
+		if (!resultsFile.isEmpty()) {
+			try {
+				resultsWriter = new ResultsWriter(resultsFile, resultsFormat);
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.exit(0);
 			}
-//			proxy.printBloomFilters();
-			
-			runExperiment();
-			System.out.println("Client size: " + currentClientSize + " Hit count: " + proxy.getHitCount() + " Miss count: " + proxy.getMissCount() + " Disk access count: " + proxy.getDiskAccessCount() + " Average unfilled cells: " + proxy.getAvgZeroCells());
+			Iterator<SweepPoint> iter = sweepPoints.iterator();
+			while (iter.hasNext()) {
+				if (resultsWriter.isCompleted(iter.next())) {
+					iter.remove();
+				}
+			}
+		}
+		warmStates = new ConcurrentHashMap<String, CompletableFuture<WarmState>>();
+		sharedStateUses = new ConcurrentHashMap<String, AtomicInteger>();
+		if (shareWarmState) {
+			countSharedStateUses(sweepPoints);
+		}
+		int workers = Math.min(sweepParallelism > 0 ? sweepParallelism : Runtime.getRuntime().availableProcessors(), sweepPoints.size());
 
-			switch (experimentVariable) {
-			
-			case NumberOfClients:
-				if (currentClientSize >= maxClientCount) {
-					doneExperiment = true;
-				} else {
-					currentClientSize += clientCountIncrement;
+		if (workers <= 1) {
+			for (SweepPoint point : sweepPoints) {
+				forSweepPoint(System.out).runSweepPoint(point);
+			}
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(workers);
+			List<Future<ByteArrayOutputStream>> results = new ArrayList<Future<ByteArrayOutputStream>>();
+			for (final SweepPoint point : sweepPoints) {
+				results.add(pool.submit(new Callable<ByteArrayOutputStream>() {
+					public ByteArrayOutputStream call() {
+						ByteArrayOutputStream output = new ByteArrayOutputStream();
+						forSweepPoint(new PrintStream(output, true)).runSweepPoint(point);
+						return output;
+					}
+				}));
+			}
+			pool.shutdown();
+
+			try {
+				for (Future<ByteArrayOutputStream> result : results) {
+					System.out.print(result.get().toString());
 				}
-				break;
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+				System.exit(0);
+			}
+		}
+
+		if (resultsWriter != null) {
+			resultsWriter.close();
+		}
+	}
+
+	/**
+	 * Counts the points using each warm state and each set of warmed up
+	 * filters. Only the ones used by more than one point are kept.
+	 * @param sweepPoints
+	 */
+	private void countSharedStateUses(List<SweepPoint> sweepPoints) {
+		for (SweepPoint point : sweepPoints) {
+			for (String key : Arrays.asList(point.getWarmKey(), point.getFilterKey())) {
+				sharedStateUses.putIfAbsent(key, new AtomicInteger());
+				sharedStateUses.get(key).incrementAndGet();
+			}
+		}
+		Iterator<AtomicInteger> iter = sharedStateUses.values().iterator();
+		while (iter.hasNext()) {
+			if (iter.next().get() < 2) {
+				iter.remove();
+			}
+		}
+	}
 
-			case CacheSize:
-				if (currentCacheSize >= maxCacheSize) {
-					doneExperiment = true;
-				} else {
-					currentCacheSize += cacheSizeIncrement;
+	/**
+	 * Lists the points of the sweep. A grid crosses the client sizes and the
+	 * cache sizes with the grid lists, other experiments vary one size.
+	 * @param clientSize
+	 * @param cacheSize
+	 * @param algorithmType
+	 * @param experimentVariable
+	 * @return
+	 */
+	private List<SweepPoint> getSweepPoints(int clientSize, int cacheSize, Algorithm algorithmType,
+			ExperimentVariable experimentVariable) {
+		List<Integer> clientSizes = new ArrayList<Integer>();
+		List<Integer> cacheSizes = new ArrayList<Integer>();
+		clientSizes.add(clientSize);
+		cacheSizes.add(cacheSize);
+
+		if (experimentVariable == ExperimentVariable.NumberOfClients || experimentVariable == ExperimentVariable.Grid) {
+			for (int size = clientSize; clientCountIncrement > 0 && size < maxClientCount; ) {
+				size += clientCountIncrement;
+				clientSizes.add(size);
+			}
+		}
+		if (experimentVariable == ExperimentVariable.CacheSize || experimentVariable == ExperimentVariable.Grid) {
+			for (int size = cacheSize; cacheSizeIncrement > 0 && size < maxCacheSize; ) {
+				size += cacheSizeIncrement;
+				cacheSizes.add(size);
+			}
+		}
+
+		List<Algorithm> algorithms = experimentVariable == ExperimentVariable.Grid ? gridAlgorithms : Arrays.asList(algorithmType);
+		List<BloomFilterType> bloomFilterTypes = experimentVariable == ExperimentVariable.Grid ? gridBloomFilterTypes : Arrays.asList(bloomFilterType);
+		List<Workload> workloads = experimentVariable == ExperimentVariable.Grid ? gridWorkloads : Arrays.asList(workload);
+
+		List<SweepPoint> sweepPoints = new ArrayList<SweepPoint>();
+		for (int currentClientSize : clientSizes) {
+			for (int currentCacheSize : cacheSizes) {
+				List<Integer> hashFunctionsCounts = gridHashFunctionsCounts;
+				if (experimentVariable != ExperimentVariable.Grid || hashFunctionsCounts.isEmpty()) {
+					hashFunctionsCounts = Arrays.asList(getHashFunctionsCount(getBloomFilterSize(currentCacheSize), currentCacheSize));
+				}
+				for (Algorithm currentAlgorithm : algorithms) {
+					for (BloomFilterType currentBloomFilterType : bloomFilterTypes) {
+						for (int hashFunctionsCount : hashFunctionsCounts) {
+							for (Workload currentWorkload : workloads) {
+								sweepPoints.add(new SweepPoint(currentClientSize, currentCacheSize, currentAlgorithm,
+										currentBloomFilterType, hashFunctionsCount, currentWorkload, replacementPolicyType));
+							}
+						}
+					}
 				}
-				break;
+			}
+		}
+		return sweepPoints;
+	}
 
-			default:
-				break;
+	/**
+	 * Copies the configuration into a simulator for one point of the sweep
+	 * @param out where the point prints its results
+	 * @return
+	 */
+	private Simulator forSweepPoint(PrintStream out) {
+		try {
+			Simulator simulator = (Simulator) clone();
+			simulator.out = out;
+			simulator.hash = Hash.getInstance().copy();
+			simulator.clients = null;
+			simulator.proxy = null;
+			simulator.dataSet = null;
+			return simulator;
+		} catch (CloneNotSupportedException e) {
+			e.printStackTrace();
+			System.exit(0);
+			return null;
+		}
+	}
+
+	/**
+	 * Runs the experiment for one point of the sweep
+	 * @param point
+	 */
+	private void runSweepPoint(SweepPoint point) {
+		long allocationStart = getAllocatedBytes();
+		int currentClientSize = point.getClientSize();
+		int currentCacheSize = point.getCacheSize();
+		k = 5;
+		bloomFilterType = point.getBloomFilterType();
+		int bfSize = getBloomFilterSize(currentCacheSize);
+		hash.setHashFunctionsCount(point.getHashFunctionsCount());
+		initialize(currentClientSize, currentCacheSize, point.getAlgorithm());
+//		System.out.println("Setting Bloom filter size to: " + (int)bfSize);
+		proxy.setBloomFilterSize(bfSize);
+		if (proxy instanceof ProxyIBF) {
+			((ProxyIBF)proxy).setDecayInterval(ibfDecayInterval);
+		}
+		preload(point);
+//		allocateRiggedKSequences(currentClientSize, currentCacheSize, diskSize, 10);
+//		allocateRiggedKSequences2(currentClientSize, currentCacheSize, diskSize, 10);
+//		allocateRiggedIBFData(currentClientSize, currentCacheSize, diskSize);
+//		proxy.printBloomFilters();
+		
+		long wallTime = runExperiment();
+		MetricsSnapshot metrics = proxy.getMetrics().snapshot();
+		if (experimentVariable == ExperimentVariable.Grid) {
+			out.println("Cell: " + point.getKey());
+		}
+		out.println("Client size: " + currentClientSize + " Hit count: " + metrics.getHits() + " Miss count: " + metrics.getTotal(Metric.FalseForwards) + " Disk access count: " + metrics.getTotal(Metric.DiskAccesses) + " Local hits: " + metrics.getTotal(Metric.LocalHits) + " Remote hits: " + metrics.getTotal(Metric.RemoteHits) + " Average unfilled cells: " + proxy.getAvgZeroCells() + " False positive rate: " + proxy.getFalsePositiveRate());
+		if (bloomFilterType == BloomFilterType.Counting) {
+			printFalseForwardRates(metrics);
+		}
+		out.println("Serve imbalance (max/mean): " + metrics.getImbalance(Metric.Serves));
+		if (hintCacheSize > 0) {
+			out.println("Hint hit ratio: " + metrics.getHintHitRatio() + " Hint hits: " + metrics.getTotal(Metric.HintHits) + " Filter probes saved: " + metrics.getTotal(Metric.ProbesSaved));
+		}
+		if (resultsWriter != null) {
+			resultsWriter.write(point, metrics, wallTime, getAllocatedBytes() - allocationStart + clientAllocatedBytes.get());
+		}
+	}
+
+	/**
+	 * Fills the client caches, requests and the proxy filters. The first point
+	 * of a shared warm state allocates the workload and captures it, the
+	 * others restore it. Likewise the first point of a shared filter key
+	 * builds the filters and keeps a copy, which the others copy again
+	 * instead of hashing every cached block.
+	 * @param point
+	 */
+	private void preload(SweepPoint point) {
+		WarmState warmState = null;
+		if (sharedStateUses.containsKey(point.getWarmKey())) {
+			CompletableFuture<WarmState> produced = new CompletableFuture<WarmState>();
+			CompletableFuture<WarmState> existing = warmStates.putIfAbsent(point.getWarmKey(), produced);
+			if (existing == null) {
+				try {
+					allocateWorkload(point.getWorkload(), point.getClientSize(), point.getCacheSize());
+					warmState = new WarmState(clients);
+					produced.complete(warmState);
+				} catch (RuntimeException e) {
+					produced.completeExceptionally(e);
+					throw e;
+				}
+			} else {
+				warmState = existing.join();
+				warmState.restore(clients);
 			}
+			if (releaseSharedState(point.getWarmKey())) {
+				warmStates.remove(point.getWarmKey());
+			}
+		} else {
+			allocateWorkload(point.getWorkload(), point.getClientSize(), point.getCacheSize());
+		}
 
+		for (int i = 0; i < clients.length; i++) {
+			clients[i].setBloomFilterType(bloomFilterType);
+		}
+		if (warmState == null || !sharedStateUses.containsKey(point.getFilterKey())) {
+			buildBloomFilters();
+			return;
+		}
+		CompletableFuture<Proxy> produced = new CompletableFuture<Proxy>();
+		CompletableFuture<Proxy> existing = warmState.getFilters().putIfAbsent(point.getFilterKey(), produced);
+		if (existing == null) {
+			try {
+				buildBloomFilters();
+				Proxy warmProxy = ProxyFactory.createProxy(bloomFilterType);
+				warmProxy.copyBloomFilters(proxy);
+				produced.complete(warmProxy);
+			} catch (RuntimeException e) {
+				produced.completeExceptionally(e);
+				throw e;
+			}
+		} else {
+			proxy.copyBloomFilters(existing.join());
+		}
+		if (releaseSharedState(point.getFilterKey())) {
+			warmState.getFilters().remove(point.getFilterKey());
+		}
+	}
+
+	/**
+	 * Initializes the proxy filters and adds the client caches to them
+	 */
+	private void buildBloomFilters() {
+		proxy.setBloomFilters();
+		for (int i = 0; i < clients.length; i++) {
+			clients[i].updateAllCacheToProxy();
+		}
+	}
+
+	/**
+	 * Counts a point out of a shared warm state or filter key
+	 * @param key
+	 * @return true if no other point uses it anymore
+	 */
+	private boolean releaseSharedState(String key) {
+		if (sharedStateUses.get(key).decrementAndGet() == 0) {
+			sharedStateUses.remove(key);
+			return true;
 		}
+		return false;
+	}
 
+	/**
+	 * Fills the client caches and requests
+	 * @param workload
+	 * @param numberOfClients
+	 * @param cacheSize
+	 */
+	private void allocateWorkload(Workload workload, int numberOfClients, int cacheSize) {
+		switch (workload) {
+		case RandomData:
+			allocateRandomData(numberOfClients, cacheSize, diskSize);
+			break;
+		case RandomTraceRandomClientsData:
+			allocateRandomTraceDataRandomClientsData(numberOfClients, cacheSize, diskSize);
+			break;
+		case TraceDataInAllClients:
+			allocateTraceDataInAllClients(numberOfClients, cacheSize, diskSize);
+			break;
+		case TraceDataInOneClient:
+			allocateTraceDataInOneClient(numberOfClients, cacheSize, diskSize);
+			break;
+		case UniqueTraceUniqueClientsData:
+			allocateUniqueTraceDataUniqueClientsData(numberOfClients, cacheSize, diskSize);
+			break;
+		case KSequences:
+			allocateKSequences(numberOfClients, cacheSize, diskSize, k);
+			break;
+		case RandomTraceAndCachePerClient:
+		default:
+			allocateRandomTraceAndCachePerClient(numberOfClients, cacheSize, diskSize);
+			break;
+		}
+	}
+
+	/**
+	 * @return the bytes the current thread allocated so far, 0 when the JVM
+	 *         can't measure it
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return Math.max(0, ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId()));
+		}
+		return 0;
+	}
+
+	/**
+	 * Selects the hash family and precomputes the hash pairs of all the data
+	 * blocks with it when enabled. Disks larger than hashIndexMaxSize are
+	 * hashed on the fly.
+	 */
+	private void buildHashIndex() {
+		Hash.getInstance().setHashFamily(hashFamily);
+		if (!precomputeHashes) {
+			return;
+		}
+		if (diskSize > Math.min(hashIndexMaxSize, HashIndex.MAX_SIZE)) {
+			System.out.println("Disk size " + diskSize + " exceeds hash index limit " + hashIndexMaxSize + ", hashing on the fly");
+			return;
+		}
+		Hash.getInstance().setHashIndex(HashIndex.build(diskSize, Hash.getInstance()));
+	}
+	
+	/**
+	 * Returns the number of cells of each client bloom filter. Filters are
+	 * either sized for the whole disk, or for the blocks a client cache holds
+	 * at the target false positive rate: m = -n ln(p) / ln(2)^2
+	 * @param cacheSize number of blocks a client caches
+	 * @return
+	 */
+	private int getBloomFilterSize(int cacheSize) {
+		switch (bloomFilterSizing) {
+		case FalsePositiveRate:
+			double ln2 = Math.log(2);
+			return (int) Math.ceil(-cacheSize * Math.log(targetFalsePositiveRate) / (ln2 * ln2));
+		case DiskSize:
+		default:
+			return (int) ((float)(HASH_FUNCTIONS_COUNT * diskSize) / LOG_2);
+		}
+	}
+	
+	/**
+	 * Returns the number of hash functions for the bloom filter size. Filters
+	 * sized for a false positive rate use the optimal k = m/n ln(2)
+	 * @param bloomFilterSize
+	 * @param cacheSize
+	 * @return
+	 */
+	private int getHashFunctionsCount(int bloomFilterSize, int cacheSize) {
+		switch (bloomFilterSizing) {
+		case FalsePositiveRate:
+			return Math.max(1, (int) Math.round((double) bloomFilterSize / cacheSize * Math.log(2)));
+		case DiskSize:
+		default:
+			return HASH_FUNCTIONS_COUNT;
+		}
+	}
+	
+	/**
+	 * Prints a snapshot of the metrics while the clients are running
+	 * @param elapsed milliseconds since the clients started
+	 */
+	private void printProgress(long elapsed) {
+		MetricsSnapshot metrics = proxy.getMetrics().snapshot();
+		out.println("At " + elapsed + " ms: Hit count: " + metrics.getHits() + " Miss count: " + metrics.getTotal(Metric.FalseForwards) + " Disk access count: " + metrics.getTotal(Metric.DiskAccesses));
+	}
+	
+	/**
+	 * Prints the false forward rate of the counting bloom filters and the rate
+	 * a standard bloom filter would have had, if every client only it matched
+	 * had been forwarded to as well
+	 * @param metrics
+	 */
+	private void printFalseForwardRates(MetricsSnapshot metrics) {
+		long forwards = metrics.getTotal(Metric.Forwards);
+		long falseForwards = metrics.getTotal(Metric.FalseForwards);
+		long avoided = metrics.getTotal(Metric.AvoidedFalseForwards);
+		float rate = metrics.getFalseForwardRate();
+		float standardRate = (forwards + avoided) == 0 ? 0 : (float) (falseForwards + avoided) / (forwards + avoided);
+		out.println("False forward rate: " + rate + " Standard false forward rate: " + standardRate + " Avoided false forwards: " + avoided);
 	}
 
 	/**
@@ -235,7 +695,8 @@ public class Simulator {
 		server = Server.getInstance();
 		barrier = new CyclicBarrier(clientSize);
 		
-		proxy = ProxyFactory.buildProxy(bloomFilterType);
+		proxy = ProxyFactory.createProxy(bloomFilterType);
+		proxy.setHash(hash);
 		proxy.setNumberOfClients(clientSize);
 		
 		switch (algorithmType) {
@@ -283,12 +744,16 @@ public class Simulator {
 			// Throw exception
 			System.exit(0);
 		}
+		for (int i = 0; i < clientSize; i++) {
+			clients[i].setReplacementPolicyType(replacementPolicyType);
+		}
 		
-		proxy.setHitCount(0);
-		proxy.setMissCount(0);
-		proxy.setDiskAccessCount(0);
+		proxy.setMetrics(new MetricsRegistry(clientSize));
 		proxy.setClients(clients);
+		proxy.setDiskSize(diskSize);
 		proxy.setSingletMap();
+		proxy.setHintCache(hintCacheSize > 0 ? new HintCache(hintCacheSize) : null);
+		proxy.setCandidateSelection(candidateSelection);
 	}
 
 	/**
@@ -323,12 +788,23 @@ public class Simulator {
 		}
 	}
 	
-	private void runExperiment() {
+	/**
+	 * Runs the clients until they have sent all their requests
+	 * @return the milliseconds the clients ran
+	 */
+	private long runExperiment() {
 		long startTime = System.currentTimeMillis();
 		Thread[] clientThreads = new Thread[clients.length];
+		clientAllocatedBytes = new AtomicLong();
 		for (int i = 0; i < clients.length; i++) {
 //			System.out.println("Starting client with id " + clients[i].getId());
-			clientThreads[i] = new Thread(clients[i]);
+			final Client client = clients[i];
+			clientThreads[i] = new Thread(new Runnable() {
+				public void run() {
+					client.run();
+					clientAllocatedBytes.addAndGet(getAllocatedBytes());
+				}
+			});
 			clientThreads[i].start();
 			
 		}
@@ -338,7 +814,12 @@ public class Simulator {
 //			latch.await(); // Waits for all the clients to be up and running to begin the experiment
 //			SimLogger.getInstance().myLogger.log(Level.INFO, "All clients are up & running");
 			for (int i = 0; i < clients.length; i++) {
-				clientThreads[i].join();
+				while (clientThreads[i].isAlive()) {
+					clientThreads[i].join(metricsInterval);
+					if (metricsInterval > 0 && clientThreads[i].isAlive()) {
+						printProgress(System.currentTimeMillis() - startTime);
+					}
+				}
 			}
 		} catch (InterruptedException e) {
 			// TODO Auto-generated catch block
@@ -346,7 +827,8 @@ public class Simulator {
 		}
 		long endTime = System.currentTimeMillis();
 		
-		System.out.println("Execution time: " + (endTime - startTime));
+		out.println("Execution time: " + (endTime - startTime));
+		return endTime - startTime;
 	}
 	
 	/**
@@ -376,7 +858,7 @@ public class Simulator {
 	 * @param cacheSize
 	 */
 	private void allocateRandomData(int numberOfClients, int cacheSize, int diskSize) {
-		System.out.println("Allocating random data");
+		out.println("Allocating random data");
 		dataSet = new ArrayList<Integer>();
 		TreeMap<Integer, Integer> map = new TreeMap<Integer, Integer>();
 		Random rand = new Random();
@@ -418,18 +900,6 @@ public class Simulator {
 			int data = iter.next();
 //			System.out.println("Data: " + data + " Count: " + map.get(data));
 		}
-		
-		if (numberOfClients > 0 && clients[0] instanceof ClientMyAlgo) {
-			Set<Integer> set = new HashSet<Integer>(dataSet);
-			for (int data : dataSet) {
-				set.add(data);
-			}
-			int threshold = Math.round((float)dataSet.size()/set.size());
-			
-			for (int i = 0; i < numberOfClients; i++) {
-				((ClientMyAlgo)clients[i]).setUpperBound(threshold);
-			}
-		}
 	}
 	
 	/**
@@ -463,9 +933,6 @@ public class Simulator {
 		for (int i = 0; i < numberOfClients; i++) {
 			clients[i].setRequests(dataSet);
 			clients[i].setClients(clients);
-			if (numberOfClients > 0 && clients[0] instanceof ClientMyAlgo) {
-				((ClientMyAlgo)clients[i]).setUpperBound(3);
-			}
 		}
 	}
 	
@@ -499,9 +966,6 @@ public class Simulator {
 		for (int i = 0; i < numberOfClients; i++) {
 			clients[i].setRequests(dataSet);
 			clients[i].setClients(clients);
-			if (numberOfClients > 0 && clients[0] instanceof ClientMyAlgo) {
-				((ClientMyAlgo)clients[i]).setUpperBound(3);
-			}
 		}
 	}
 	
@@ -538,9 +1002,6 @@ public class Simulator {
 		for (int i = 0; i < numberOfClients; i++) {
 			clients[i].setRequests(dataSet);
 			clients[i].setClients(clients);
-			if (numberOfClients > 0 && clients[0] instanceof ClientMyAlgo) {
-				((ClientMyAlgo)clients[i]).setUpperBound(3);
-			}
 		}
 	}
 	
@@ -611,10 +1072,6 @@ public class Simulator {
 			clients[i].setRequests(traceData);
 			clients[i].addData(cacheData);
 			clients[i].setClients(clients);
-			
-			if (numberOfClients > 0 && clients[0] instanceof ClientMyAlgo) {
-				((ClientMyAlgo)clients[i]).setUpperBound(3);
-			}
 		}
 	}
 	
@@ -625,7 +1082,7 @@ public class Simulator {
 			ArrayList<Integer> cacheData = new ArrayList<Integer>();
 			ArrayList<Integer> traceData = new ArrayList<Integer>();
 			
-			System.out.print("ClientID: " + clients[i].getId() + "||");
+			out.print("ClientID: " + clients[i].getId() + "||");
 			while (cacheData.size() < cacheSize) {
 //				int data = rand.nextInt(diskSize);
 //				if (!cacheData.contains(data)) {
@@ -639,7 +1096,7 @@ public class Simulator {
 					
 					if (!cacheData.contains(data)) {
 						cacheData.add(data);
-						System.out.print(" " + data + " ");
+						out.print(" " + data + " ");
 					} else {
 						data = (rand.nextInt(diskSize) / 10) * 10 + 1;
 						counter = 1;
@@ -0,0 +1,104 @@
+package com.capstone.simulation.driver;
+
+import com.capstone.simulation.utility.Algorithm;
+import com.capstone.simulation.utility.BloomFilterType;
+import com.capstone.simulation.utility.ReplacementPolicyType;
+import com.capstone.simulation.utility.Workload;
+
+/**
+ * This class holds the parameters of one experiment of a sweep or of a grid.
+ */
+public class SweepPoint {
+
+	private int clientSize;
+	private int cacheSize;
+	private Algorithm algorithm;
+	private BloomFilterType bloomFilterType;
+	private int hashFunctionsCount;
+	private Workload workload;
+	private ReplacementPolicyType replacementPolicyType;
+
+	public SweepPoint(int clientSize, int cacheSize, Algorithm algorithm, BloomFilterType bloomFilterType,
+			int hashFunctionsCount, Workload workload, ReplacementPolicyType replacementPolicyType) {
+		this.clientSize = clientSize;
+		this.cacheSize = cacheSize;
+		this.algorithm = algorithm;
+		this.bloomFilterType = bloomFilterType;
+		this.hashFunctionsCount = hashFunctionsCount;
+		this.workload = workload;
+		this.replacementPolicyType = replacementPolicyType;
+	}
+
+	/**
+	 * @return the clientSize
+	 */
+	public int getClientSize() {
+		return clientSize;
+	}
+
+	/**
+	 * @return the cacheSize
+	 */
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * @return the algorithm
+	 */
+	public Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * @return the bloomFilterType
+	 */
+	public BloomFilterType getBloomFilterType() {
+		return bloomFilterType;
+	}
+
+	/**
+	 * @return the hashFunctionsCount
+	 */
+	public int getHashFunctionsCount() {
+		return hashFunctionsCount;
+	}
+
+	/**
+	 * @return the workload
+	 */
+	public Workload getWorkload() {
+		return workload;
+	}
+
+	/**
+	 * @return the replacementPolicyType
+	 */
+	public ReplacementPolicyType getReplacementPolicyType() {
+		return replacementPolicyType;
+	}
+
+	/**
+	 * @return a name shared by the points that start with the same caches
+	 *         and requests
+	 */
+	public String getWarmKey() {
+		return clientSize + "/" + cacheSize + "/" + workload;
+	}
+
+	/**
+	 * @return a name shared by the points that also start with the same
+	 *         filters
+	 */
+	public String getFilterKey() {
+		return getWarmKey() + "/" + bloomFilterType + "/" + hashFunctionsCount;
+	}
+
+	/**
+	 * @return a name that identifies the point in a results file
+	 */
+	public String getKey() {
+		return clientSize + "/" + cacheSize + "/" + algorithm + "/" + bloomFilterType + "/" + hashFunctionsCount + "/" + workload
+				+ "/" + replacementPolicyType;
+	}
+}
@@ -0,0 +1,71 @@
+package com.capstone.simulation.driver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.capstone.simulation.cache.BlockCache;
+import com.capstone.simulation.client.Client;
+import com.capstone.simulation.proxy.Proxy;
+
+/**
+ * This class holds the state of an experiment after the caches are
+ * preloaded: the blocks in every client cache, in cache order, and the
+ * requests of every client. Points of a sweep that only differ in algorithm
+ * or bloom filter type restore it instead of allocating new random data, so
+ * they start from identical caches.
+ *
+ * The filters built from the caches are kept per filter type and number of
+ * hash functions, as a proxy that is never run. Points copy them instead of
+ * hashing every cached block again.
+ */
+public class WarmState {
+
+	private int[][] caches;
+	private List<List<Integer>> requests;
+	private ConcurrentHashMap<String, CompletableFuture<Proxy>> filters = new ConcurrentHashMap<String, CompletableFuture<Proxy>>();
+
+	/**
+	 * Captures the caches and requests of the preloaded clients
+	 * @param clients
+	 */
+	public WarmState(Client[] clients) {
+		caches = new int[clients.length][];
+		requests = new ArrayList<List<Integer>>(clients.length);
+		for (int i = 0; i < clients.length; i++) {
+			BlockCache cache = clients[i].getCache();
+			caches[i] = new int[cache.size()];
+			int j = 0;
+			for (int slot = cache.getOldest(); slot != BlockCache.NONE; slot = cache.getNewer(slot)) {
+				caches[i][j++] = cache.getData(slot);
+			}
+			requests.add(new ArrayList<Integer>(clients[i].getRequests()));
+		}
+	}
+
+	/**
+	 * Fills new clients with the captured caches and requests. Clients add
+	 * the blocks the way they add preloaded data, so the algorithms that
+	 * count the clients caching a block update the singlet map.
+	 * @param clients
+	 */
+	public void restore(Client[] clients) {
+		for (int i = 0; i < clients.length; i++) {
+			List<Integer> cache = new ArrayList<Integer>(caches[i].length);
+			for (int data : caches[i]) {
+				cache.add(data);
+			}
+			clients[i].setRequests(requests.get(i));
+			clients[i].addData(cache);
+			clients[i].setClients(clients);
+		}
+	}
+
+	/**
+	 * @return the warmed up filters by SweepPoint filter key
+	 */
+	public ConcurrentHashMap<String, CompletableFuture<Proxy>> getFilters() {
+		return filters;
+	}
+}
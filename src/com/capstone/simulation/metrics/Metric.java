@@ -0,0 +1,14 @@
+package com.capstone.simulation.metrics;
+
+public enum Metric {
+	LocalHits, // Requests served by the cache of the requesting client
+	RemoteHits, // Requests served by another client
+	FalseForwards, // Forwards the filters matched to a client that didn't have the data
+	DiskAccesses, // Requests served by the server
+	Forwards, // Forwards the filters matched, including false forwards. Hinted forwards aren't counted
+	AvoidedFalseForwards, // Clients a standard bloom filter would have matched on top of the proxy filters
+	HintHits, // Requests served by the client the hint cache pointed to
+	HintMisses, // Hints that pointed to a client without the data
+	ProbesSaved, // Filters the proxy didn't test because a hint served the request
+	Serves // Forwards a client served, counted for the serving client
+}
@@ -0,0 +1,86 @@
+package com.capstone.simulation.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts the metrics of a proxy per client. Every metric of every
+ * client is a LongAdder, so client threads never contend on a shared counter.
+ * Events are counted for the client that made the request, except Serves
+ * which is counted for the serving client. Proxy totals are the sum over the
+ * clients.
+ *
+ * A snapshot can be taken while clients are running. Each count in it is
+ * exact at some point during the snapshot, but counts aren't read atomically
+ * together.
+ */
+public class MetricsRegistry {
+
+	private int numberOfClients;
+	private LongAdder[][] counters; // Indexed by metric ordinal, then client index
+
+	/**
+	 * Constructor
+	 * @param numberOfClients
+	 */
+	public MetricsRegistry(int numberOfClients) {
+		this.numberOfClients = numberOfClients;
+		counters = new LongAdder[Metric.values().length][numberOfClients];
+		for (int m = 0; m < counters.length; m++) {
+			for (int i = 0; i < numberOfClients; i++) {
+				counters[m][i] = new LongAdder();
+			}
+		}
+	}
+
+	/**
+	 * @return the numberOfClients
+	 */
+	public int getNumberOfClients() {
+		return numberOfClients;
+	}
+
+	/**
+	 * Counts an event of the metric for the client
+	 * @param metric
+	 * @param clientIndex index of the requesting client, starting at 0
+	 */
+	public void increment(Metric metric, int clientIndex) {
+		counters[metric.ordinal()][clientIndex].increment();
+	}
+
+	/**
+	 * Counts several events of the metric for the client at once
+	 * @param metric
+	 * @param clientIndex index of the requesting client, starting at 0
+	 * @param count
+	 */
+	public void add(Metric metric, int clientIndex, long count) {
+		counters[metric.ordinal()][clientIndex].add(count);
+	}
+
+	public long get(Metric metric, int clientIndex) {
+		return counters[metric.ordinal()][clientIndex].sum();
+	}
+
+	public long getTotal(Metric metric) {
+		long total = 0;
+		for (LongAdder counter : counters[metric.ordinal()]) {
+			total += counter.sum();
+		}
+		return total;
+	}
+
+	/**
+	 * Copies all the counts without stopping the clients
+	 * @return
+	 */
+	public MetricsSnapshot snapshot() {
+		long[][] counts = new long[counters.length][numberOfClients];
+		for (int m = 0; m < counters.length; m++) {
+			for (int i = 0; i < numberOfClients; i++) {
+				counts[m][i] = counters[m][i].sum();
+			}
+		}
+		return new MetricsSnapshot(counts);
+	}
+}
@@ -0,0 +1,72 @@
+package com.capstone.simulation.metrics;
+
+/**
+ * This class holds the counts of a MetricsRegistry at the time of the
+ * snapshot. It is not changed by later events.
+ */
+public class MetricsSnapshot {
+
+	private long[][] counts; // Indexed by metric ordinal, then client index
+
+	MetricsSnapshot(long[][] counts) {
+		this.counts = counts;
+	}
+
+	public int getNumberOfClients() {
+		return counts[0].length;
+	}
+
+	public long get(Metric metric, int clientIndex) {
+		return counts[metric.ordinal()][clientIndex];
+	}
+
+	public long getTotal(Metric metric) {
+		long total = 0;
+		for (long count : counts[metric.ordinal()]) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * @return local and remote hits of all the clients
+	 */
+	public long getHits() {
+		return getTotal(Metric.LocalHits) + getTotal(Metric.RemoteHits);
+	}
+
+	public long getHits(int clientIndex) {
+		return get(Metric.LocalHits, clientIndex) + get(Metric.RemoteHits, clientIndex);
+	}
+
+	/**
+	 * @return the fraction of forwards that went to a client without the data
+	 */
+	public float getFalseForwardRate() {
+		long forwards = getTotal(Metric.Forwards);
+		return forwards == 0 ? 0 : (float) getTotal(Metric.FalseForwards) / forwards;
+	}
+
+	/**
+	 * Measures how unevenly the metric is spread over the clients
+	 * @param metric
+	 * @return the largest count of a client over the average count, 1 when
+	 *         the clients are balanced
+	 */
+	public float getImbalance(Metric metric) {
+		long max = 0;
+		for (long count : counts[metric.ordinal()]) {
+			max = Math.max(max, count);
+		}
+		long total = getTotal(metric);
+		return total == 0 ? 0 : (float) max * getNumberOfClients() / total;
+	}
+
+	/**
+	 * @return the fraction of hints that led to a client with the data
+	 */
+	public float getHintHitRatio() {
+		long hints = getTotal(Metric.HintHits) + getTotal(Metric.HintMisses);
+		return hints == 0 ? 0 : (float) getTotal(Metric.HintHits) / hints;
+	}
+}
@@ -0,0 +1,601 @@
+package com.capstone.simulation.proxy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.capstone.simulation.bloomfilters.BitSlicedBloomDirectory;
+import com.capstone.simulation.client.Client;
+import com.capstone.simulation.client.ClientKSequence;
+import com.capstone.simulation.data.DataBlock;
+import com.capstone.simulation.data.Forward;
+import com.capstone.simulation.metrics.Metric;
+import com.capstone.simulation.metrics.MetricsRegistry;
+import com.capstone.simulation.server.Server;
+import com.capstone.simulation.utility.CandidateSelection;
+import com.capstone.simulation.utility.Hash;
+
+/**
+ * This is an abstract class for proxy that forwards client requests and
+ * sometimes delivers data to clients.
+ * Proxies implementing a specific bloom filter type must extend this class and
+ * keep the bit sliced directory in sync with their filters.
+ *
+ * @author Pavan Kumar
+ */
+public abstract class AbstractProxy implements Proxy {
+
+	private int numberOfClients;
+	private int bloomFilterSize;
+	private int diskSize; // Data blocks are in [0, diskSize)
+	private BitSlicedBloomDirectory directory; // Transposed copy of the bloom filters used for lookups
+	private Client[] clients;
+	private OccurrenceIndex singletMap; // Number of clients caching each data block
+	private MetricsRegistry metrics;
+	private HintCache hintCache; // Last client that served each hot block, null when disabled
+	private CandidateSelection candidateSelection = CandidateSelection.LowestIndex;
+	private AtomicIntegerArray outstandingForwards; // Forwards each client is serving
+	private AtomicInteger rotation = new AtomicInteger(); // Start offset for RotatingStart
+	private ThreadLocal<int[]> candidateBuffers = new ThreadLocal<int[]>(); // Matching clients of the request of each client thread
+
+	private Server server = Server.getInstance();
+	private Hash hash = Hash.getInstance();
+
+	private static final int HINT_SERVED = -1;
+
+	protected AbstractProxy() {
+
+	}
+
+	public abstract void addDataToBloomFilter(int clientId, int data, int importance);
+
+	/**
+	 * Removes data from bloom filter set. Bloom filters that can't delete
+	 * ignore the eviction.
+	 *
+	 * @param clientId
+	 *            whose bloom filter is being updated
+	 * @param data
+	 *            which has been evicted from the client cache
+	 */
+	public void removeDataFromBloomFilter(int clientId, int data) {
+
+	}
+
+	/**
+	 * Receives data request from client and finds it. Runs on the thread of
+	 * the requesting client without a proxy wide lock: lookups only read the
+	 * filters and each client guards its own cache.
+	 * The client in the hint cache is tried before the filters are scanned.
+	 * @param data
+	 */
+	public void receiveDataRequest(int clientId, int data) {
+//		System.out.println("Entered receiveDataRequest for client " + clientId + " and data " + data);
+		int fromClientId = 0; // Start looking from first client
+		int missedHint = Integer.MIN_VALUE;
+
+		if (hintCache != null) {
+			missedHint = forwardToHint(clientId - 1, data);
+			if (missedHint == HINT_SERVED) {
+				return;
+			}
+		}
+
+		countAvoidedFalseForwards(clientId - 1, data);
+
+		if (candidateSelection != CandidateSelection.LowestIndex) {
+			forwardToCandidates(clientId - 1, data, missedHint);
+			return;
+		}
+
+		while (fromClientId < numberOfClients) {
+//			System.out.println("Bloom filter look up: Begin : From " + fromClientId);
+			int index = lookForData(clientId - 1, data, fromClientId);
+//			System.out.println("Bloom filter look up: End : Data found at " + (index+1));
+
+			if (index != Integer.MIN_VALUE && index == missedHint) {
+//				Already forwarded to this client
+				fromClientId = index + 1;
+			} else if (index == Integer.MIN_VALUE) {
+//				Retrieve and send data from server
+				sendDataFromServer(clientId - 1, data);
+//				System.out.println("Disk access occured");
+				break;
+			} else {
+//				Forward it to client
+//				System.out.println("Found data " + data + " in client " + (index+1));
+				if (forward(index, clientId - 1, data, true)) {
+//					System.out.println("Hit occured");
+					break;
+				} else {
+
+					fromClientId = index + 1;
+//					System.out.println("Miss occured: Incremented clientId to " + fromClientId);
+				}
+
+			}
+		}
+
+		if (fromClientId >= numberOfClients) {
+//			Traversed through all the Bloom filters and data is not found in any client.
+//			So, disk access
+			sendDataFromServer(clientId - 1, data);
+//			System.out.println("Disk access occured");
+		}
+//		System.out.println("Exited receiveDataRequest for client " + clientId + " and data " + data);
+	}
+
+	/**
+	 * Forwards the request to a client and counts the outcome. Only forwards
+	 * the filters matched count towards the false forward rate.
+	 * @param index of the client
+	 * @param clientIndex index of the requesting client
+	 * @param data
+	 * @param filterMatched false for a forward to a hinted client
+	 * @return True if the client served data
+	 */
+	private boolean forward(int index, int clientIndex, int data, boolean filterMatched) {
+		if (filterMatched) {
+			metrics.increment(Metric.Forwards, clientIndex);
+		}
+		outstandingForwards.incrementAndGet(index);
+		boolean served = clients[index].forwardDataRequest(clientIndex, data);
+		outstandingForwards.decrementAndGet(index);
+
+		if (served) {
+			metrics.increment(Metric.RemoteHits, clientIndex);
+			metrics.increment(Metric.Serves, index);
+			if (hintCache != null) {
+				hintCache.put(data, index);
+			}
+		} else if (filterMatched) {
+			metrics.increment(Metric.FalseForwards, clientIndex);
+		}
+		return served;
+	}
+
+	/**
+	 * Collects all the clients whose filters match data and forwards the
+	 * request to them, in the order the candidate selection picks, until one
+	 * serves it. Falls back to the server.
+	 * @param clientIndex index of the requesting client
+	 * @param data
+	 * @param missedHint client already forwarded to, or Integer.MIN_VALUE
+	 */
+	private void forwardToCandidates(int clientIndex, int data, int missedHint) {
+		int[] candidates = candidateBuffers.get();
+		if (candidates == null || candidates.length < numberOfClients) {
+			candidates = new int[numberOfClients];
+			candidateBuffers.set(candidates);
+		}
+		int matches = findClients(clientIndex, data, candidates);
+		int count = 0;
+		for (int i = 0; i < matches; i++) {
+			if (candidates[i] != missedHint) {
+				candidates[count++] = candidates[i];
+			}
+		}
+
+		int offset = candidateSelection == CandidateSelection.RotatingStart
+				? Math.floorMod(rotation.getAndIncrement(), numberOfClients) : 0;
+		while (count > 0) {
+			int choice = chooseCandidate(candidates, count, offset);
+			int candidate = candidates[choice];
+//			Keep the remaining candidates in client order
+			System.arraycopy(candidates, choice + 1, candidates, choice, count - choice - 1);
+			count--;
+			if (forward(candidate, clientIndex, data, true)) {
+				return;
+			}
+		}
+		sendDataFromServer(clientIndex, data);
+	}
+
+	/**
+	 * @param candidates matching clients in client order
+	 * @param count number of candidates
+	 * @param offset first client for RotatingStart
+	 * @return position of the chosen candidate
+	 */
+	private int chooseCandidate(int[] candidates, int count, int offset) {
+		switch (candidateSelection) {
+		case RotatingStart:
+			for (int i = 0; i < count; i++) {
+				if (candidates[i] >= offset) {
+					return i;
+				}
+			}
+			return 0;
+
+		case RandomMatch:
+			return ThreadLocalRandom.current().nextInt(count);
+
+		case LeastOutstanding:
+			int least = 0;
+			for (int i = 1; i < count; i++) {
+				if (isLessLoaded(candidates[i], candidates[least])) {
+					least = i;
+				}
+			}
+			return least;
+
+		case PowerOfTwoChoices:
+			if (count == 1) {
+				return 0;
+			}
+			int first = ThreadLocalRandom.current().nextInt(count);
+			int second = ThreadLocalRandom.current().nextInt(count - 1);
+			if (second >= first) {
+				second++;
+			}
+			return isLessLoaded(candidates[second], candidates[first]) ? second : first;
+
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Compares the forwards in progress, then the forwards served so far
+	 */
+	private boolean isLessLoaded(int index, int otherIndex) {
+		int outstanding = outstandingForwards.get(index);
+		int otherOutstanding = outstandingForwards.get(otherIndex);
+		if (outstanding != otherOutstanding) {
+			return outstanding < otherOutstanding;
+		}
+		return metrics.get(Metric.Serves, index) < metrics.get(Metric.Serves, otherIndex);
+	}
+
+	/**
+	 * Forwards the request to the client that last served data, if any.
+	 * A stale hint is dropped.
+	 * @param clientIndex index of the requesting client
+	 * @param data
+	 * @return HINT_SERVED if the hinted client served data, else the index
+	 *         of the client that missed or Integer.MIN_VALUE
+	 */
+	private int forwardToHint(int clientIndex, int data) {
+		int hinted = hintCache.get(data);
+		if (hinted == Integer.MIN_VALUE || hinted >= numberOfClients) {
+			return Integer.MIN_VALUE;
+		}
+		if (hinted == clientIndex) {
+//			The requesting client served it before but has evicted it since
+			hintCache.invalidate(data, hinted);
+			metrics.increment(Metric.HintMisses, clientIndex);
+			return Integer.MIN_VALUE;
+		}
+
+		if (forward(hinted, clientIndex, data, false)) {
+			metrics.increment(Metric.HintHits, clientIndex);
+//			A scan from the first filter tests every filter up to the hinted client, except the requester's
+			metrics.add(Metric.ProbesSaved, clientIndex, clientIndex < hinted ? hinted : hinted + 1);
+			return HINT_SERVED;
+		}
+		metrics.increment(Metric.HintMisses, clientIndex);
+		hintCache.invalidate(data, hinted);
+		return hinted;
+	}
+
+	/**
+	 * Counts the clients a standard bloom filter matches for a request that
+	 * reaches the filters, but the filters of this proxy don't. All of them
+	 * are counted whatever order the candidate selection tries clients in.
+	 * Only filters that delete evicted data avoid false forwards, so none are
+	 * counted by default.
+	 * @param clientIndex index of the requesting client
+	 * @param data
+	 */
+	protected void countAvoidedFalseForwards(int clientIndex, int data) {
+
+	}
+
+	/**
+	 * Collects every client whose filter matches data in one pass of the
+	 * transposed bloom filter directory, hashing data once.
+	 * @param clientIndex index of the requesting client, skipped
+	 * @param data
+	 * @param matches filled with the matching client indexes in client order
+	 * @return the number of matching clients
+	 */
+	protected int findClients(int clientIndex, int data, int[] matches) {
+		return directory.findClients(hash.hashPair(data), hash.getHashFunctionsCount(), clientIndex, matches);
+	}
+
+	/**
+	 * Looks up the transposed bloom filter directory to find the first client,
+	 * from fromClientId onwards, whose filter matches at all hash value indexes.
+	 *
+	 * @param data
+	 *            The data which is being searched
+	 * @return clientId if data is found. Else returns Integer.MIN_VALUE
+	 */
+	public int lookForData(int clientId, int data, int fromClientId) {
+		return directory.findClient(hash.hashPair(data), hash.getHashFunctionsCount(), fromClientId, clientId);
+	}
+
+	/**
+	 * @return the numberOfClients
+	 */
+	public int getNumberOfClients() {
+		return numberOfClients;
+	}
+
+	/**
+	 * @param numberOfClients
+	 *            the numberOfClients to set
+	 */
+	public void setNumberOfClients(int numberOfClients) {
+		this.numberOfClients = numberOfClients;
+	}
+
+	/**
+	 * @return the bloomFilterSize
+	 */
+	public int getBloomFilterSize() {
+		return bloomFilterSize;
+	}
+
+	/**
+	 * @param bloomFilterSize
+	 *            the bloomFilterSize to set
+	 */
+	public void setBloomFilterSize(int bloomFilterSize) {
+		this.bloomFilterSize = bloomFilterSize;
+	}
+
+	/**
+	 * @return the diskSize
+	 */
+	public int getDiskSize() {
+		return diskSize;
+	}
+
+	/**
+	 * @param diskSize the diskSize to set
+	 */
+	public void setDiskSize(int diskSize) {
+		this.diskSize = diskSize;
+	}
+
+	/**
+	 * @return the directory
+	 */
+	protected BitSlicedBloomDirectory getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @param directory the directory to set
+	 */
+	protected void setDirectory(BitSlicedBloomDirectory directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @return the clients
+	 */
+	public Client[] getClients() {
+		return clients;
+	}
+
+	/**
+	 * @param clients the clients to set
+	 */
+	public void setClients(Client[] clients) {
+		this.clients = clients;
+		this.outstandingForwards = new AtomicIntegerArray(clients.length);
+	}
+
+	/**
+	 * @return the candidateSelection
+	 */
+	public CandidateSelection getCandidateSelection() {
+		return candidateSelection;
+	}
+
+	/**
+	 * @param candidateSelection picks the client to forward to when several
+	 *            filters match
+	 */
+	public void setCandidateSelection(CandidateSelection candidateSelection) {
+		this.candidateSelection = candidateSelection;
+	}
+
+	/**
+	 * @return the singletMap
+	 */
+	public OccurrenceIndex getSingletMap() {
+		return singletMap;
+	}
+
+	/**
+	 * Initializes the singletMap. A block can be cached by every client, so
+	 * counts up to the number of clients are indexed separately.
+	 */
+	public void setSingletMap() {
+//		Initial capacity = total number of data blocks cached in all the clients altogether
+		int initialCapacity = numberOfClients * clients[0].getCacheSize();
+		this.singletMap = new OccurrenceIndex(diskSize, initialCapacity, numberOfClients);
+	}
+
+	/**
+	 * @return the hintCache
+	 */
+	public HintCache getHintCache() {
+		return hintCache;
+	}
+
+	/**
+	 * @param hintCache the hintCache to set, or null to scan the filters for
+	 *            every request
+	 */
+	public void setHintCache(HintCache hintCache) {
+		this.hintCache = hintCache;
+	}
+
+	/**
+	 * Updates singletMap: If data was not present in the map, it is added to it
+	 * and it's value is set to 1. If it is already present, its value is
+	 * incremented by 1.
+	 * @param data
+	 * @param increment
+	 */
+	public void updateSingletMap(int data, boolean increment) {
+		if (increment) {
+			singletMap.increment(data);
+		} else {
+			singletMap.decrement(data);
+		}
+//		System.out.println("Singlet Map size: " + singletMap.size());
+	}
+
+	/**
+	 * Returns occurrence count of data
+	 * @param data
+	 * @return
+	 */
+	public int getDataOccurrenceCount(int data) {
+		return singletMap.getCount(data);
+	}
+
+	/**
+	 * Checks if data is a Singlet
+	 * @param data
+	 * @return true iff the data is a singlet
+	 */
+	public boolean isDataSinglet(int clientId, int data) {
+//		Data not present in the singlet map is a singlet
+		return !singletMap.contains(data) || singletMap.getCount(data) == 1;
+	}
+
+	/**
+	 * Traverses through all the clients to gather how many clients cache the sequence
+	 * @param firstBlock
+	 * @return True if only one client has the complete sequence. False otherwise
+	 */
+	public int getSequenceOccurrence(int firstBlock) {
+		Client[] clients = getClients();
+
+		int counter = 0;
+		for (int i = 0; i < clients.length; i++) {
+			if (((ClientKSequence)clients[i]).isSequenceCached(firstBlock)) {
+				counter++;
+			}
+		}
+
+		return counter;
+	}
+
+	/**
+	 * @return the hash
+	 */
+	public Hash getHash() {
+		return hash;
+	}
+
+	/**
+	 * @param hash the hash to set. Proxies of an experiment share it with
+	 *            their filters.
+	 */
+	public void setHash(Hash hash) {
+		this.hash = hash;
+	}
+
+	/**
+	 * @return the server
+	 */
+	public Server getServer() {
+		return server;
+	}
+
+	/**
+	 * @param server the server to set
+	 */
+	public void setServer(Server server) {
+		this.server = server;
+	}
+
+	private void sendDataFromServer(int clientIndex, int data) {
+		int retrievedData = server.getData(data);
+		DataBlock dataBlock = new DataBlock(retrievedData);
+//		System.out.println("Server sending client: " + clients[clientIndex].getId() + " data: " + retrievedData);
+		clients[clientIndex].receiveData(dataBlock);
+		metrics.increment(Metric.DiskAccesses, clientIndex);
+	}
+
+	/**
+	 * @return the metrics
+	 */
+	public MetricsRegistry getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @param metrics the metrics to set
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		this.metrics = metrics;
+	}
+
+	public void missOccured(int missedClientId, int requestedClientId, int data) {
+		metrics.increment(Metric.FalseForwards, requestedClientId);
+
+		int fromClientId = missedClientId + 1; // Start looking from after the previously missed client
+		int index = lookForData(requestedClientId, data, fromClientId);
+//		System.out.println("Found data in client " + (index+1));
+
+		if (index == Integer.MIN_VALUE) {
+//			Retrieve and send data from server
+			sendDataFromServer(requestedClientId, data);
+		} else {
+//			Forward it to client
+//			System.out.println("Calling forwardDataRequest from missOccured");
+			metrics.increment(Metric.Forwards, requestedClientId);
+			clients[index].forwardDataRequest(requestedClientId, data);
+		}
+	}
+
+	/**
+	 * Finds the datablock that is cached in the most clients from the singlet
+	 * map index, and a client holding it
+	 * @param clientId Is the id of requesting client
+	 * @return
+	 */
+	public Forward getVictim(int clientId) {
+
+		int maxOccuringData = singletMap.getMostReplicated(); // Never a Singlet
+
+		// Get client id for max occuring data
+		int resultClientId = Integer.MIN_VALUE;
+
+		// Decrease count for maxOccuringData in singletMap
+		if (maxOccuringData != Integer.MIN_VALUE) {
+			resultClientId = lookForData(clientId - 1, maxOccuringData, 0); // Start looking from the first bloom filter
+//			singletMap.put(maxOccuringData, singletMap.get(maxOccuringData) - 1);
+		}
+
+		if (resultClientId == Integer.MIN_VALUE) {
+			return new Forward(resultClientId, null);
+		} else {
+			return new Forward(resultClientId, new DataBlock(maxOccuringData));
+		}
+
+	}
+
+	/**
+	 * Estimates the false positive rate the filters reached from their
+	 * average fill: a lookup matches when all k cells are non zero.
+	 * @return
+	 */
+	public double getFalsePositiveRate() {
+		double filledRatio = 1 - (double) getAvgZeroCells() / getBloomFilterSize();
+		return Math.pow(filledRatio, hash.getHashFunctionsCount());
+	}
+
+	@Override
+	public void printBloomFilters() {
+
+	}
+}
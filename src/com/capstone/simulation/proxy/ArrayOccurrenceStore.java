@@ -0,0 +1,62 @@
+package com.capstone.simulation.proxy;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Occurrence store for data blocks in [0, size), with one int per block in an
+ * atomic array updated by compare and swap. Blocks outside the range go to an
+ * overflow hash store.
+ */
+public class ArrayOccurrenceStore implements OccurrenceStore {
+
+	private AtomicIntegerArray counts;
+	private HashOccurrenceStore overflow;
+
+	/**
+	 * Constructor
+	 * @param size number of data blocks, usually the disk size
+	 */
+	public ArrayOccurrenceStore(int size) {
+		counts = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			counts.set(i, ABSENT);
+		}
+		overflow = new HashOccurrenceStore(16);
+	}
+
+	public int increment(int data) {
+		if (!inRange(data)) {
+			return overflow.increment(data);
+		}
+		while (true) {
+			int current = counts.get(data);
+			int updated = current == ABSENT ? 1 : current + 1;
+			if (counts.compareAndSet(data, current, updated)) {
+				return updated;
+			}
+		}
+	}
+
+	public int decrement(int data) {
+		if (!inRange(data)) {
+			return overflow.decrement(data);
+		}
+		while (true) {
+			int current = counts.get(data);
+			if (current == ABSENT) {
+				return ABSENT;
+			}
+			if (counts.compareAndSet(data, current, current - 1)) {
+				return current - 1;
+			}
+		}
+	}
+
+	public int get(int data) {
+		return inRange(data) ? counts.get(data) : overflow.get(data);
+	}
+
+	private boolean inRange(int data) {
+		return data >= 0 && data < counts.length();
+	}
+}
@@ -0,0 +1,118 @@
+package com.capstone.simulation.proxy;
+
+import java.util.Arrays;
+
+/**
+ * Occurrence store for any data block, in open addressing hash tables of
+ * primitive ints. Blocks are spread over segments by hash, and each segment
+ * is locked on its own, so updates of blocks in different segments never
+ * contend. Integer.MIN_VALUE can't be stored as a block.
+ */
+public class HashOccurrenceStore implements OccurrenceStore {
+
+	private static final int SEGMENTS = 32; // Power of 2
+	private static final int EMPTY = Integer.MIN_VALUE;
+
+	private Segment[] segments;
+
+	/**
+	 * Constructor
+	 * @param initialCapacity expected number of blocks
+	 */
+	public HashOccurrenceStore(int initialCapacity) {
+		segments = new Segment[SEGMENTS];
+		int segmentCapacity = Math.max(2, initialCapacity / SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(segmentCapacity);
+		}
+	}
+
+	public int increment(int data) {
+		return segmentFor(data).add(data, 1);
+	}
+
+	public int decrement(int data) {
+		return segmentFor(data).add(data, -1);
+	}
+
+	public int get(int data) {
+		return segmentFor(data).get(data);
+	}
+
+	private Segment segmentFor(int data) {
+		return segments[mix(data) >>> 27];
+	}
+
+	private static int mix(int data) {
+		int h = data * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Linear probing table kept at most half full
+	 */
+	private static class Segment {
+		private int[] keys;
+		private int[] values;
+		private int size;
+
+		Segment(int capacity) {
+			int length = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+			keys = new int[length];
+			values = new int[length];
+			Arrays.fill(keys, EMPTY);
+		}
+
+		synchronized int get(int data) {
+			int slot = find(keys, data);
+			return keys[slot] == EMPTY ? ABSENT : values[slot];
+		}
+
+		/**
+		 * Adds delta to the count of data. An absent block is only added by
+		 * a positive delta and then starts at 1.
+		 */
+		synchronized int add(int data, int delta) {
+			int slot = find(keys, data);
+			if (keys[slot] != EMPTY) {
+				values[slot] += delta;
+				return values[slot];
+			}
+			if (delta < 0) {
+				return ABSENT;
+			}
+			if ((size + 1) * 2 > keys.length) {
+				resize();
+				slot = find(keys, data);
+			}
+			keys[slot] = data;
+			values[slot] = 1;
+			size++;
+			return 1;
+		}
+
+		private void resize() {
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new int[oldKeys.length * 2];
+			Arrays.fill(keys, EMPTY);
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY) {
+					int slot = find(keys, oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+
+		private static int find(int[] keys, int data) {
+			int mask = keys.length - 1;
+			int slot = mix(data) & mask;
+			while (keys[slot] != EMPTY && keys[slot] != data) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.capstone.simulation.proxy;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class remembers the client that last served a data block to another
+ * client, so the proxy can forward a request for a hot block there before
+ * scanning the bloom filters.
+ *
+ * The cache is set associative: a data block maps to a set of 4 entries and
+ * each entry packs the data, a valid bit, a referenced bit and the client
+ * index in a long. Entries are replaced with CLOCK inside their set. A new
+ * hint starts unreferenced, so only hints that are used again survive a
+ * sweep. All the updates are compare and swap, so a hint may be lost or
+ * duplicated under contention, which only costs a filter scan.
+ */
+public class HintCache {
+
+	public static final int WAYS = 4;
+	private static final long VALID = 1L << 31;
+	private static final long REFERENCED = 1L << 30;
+	private static final long CLIENT_MASK = REFERENCED - 1;
+
+	private int setMask;
+	private AtomicLongArray entries;
+	private AtomicIntegerArray hands; // CLOCK hand of each set
+
+	/**
+	 * Constructor
+	 * @param capacity number of hints, rounded up to a power of 2 sets
+	 */
+	public HintCache(int capacity) {
+		int sets = Math.max(1, (capacity + WAYS - 1) / WAYS);
+		sets = Integer.bitCount(sets) == 1 ? sets : Integer.highestOneBit(sets) << 1;
+		this.setMask = sets - 1;
+		this.entries = new AtomicLongArray(sets * WAYS);
+		this.hands = new AtomicIntegerArray(sets);
+	}
+
+	/**
+	 * @return the number of hints the cache holds
+	 */
+	public int getCapacity() {
+		return entries.length();
+	}
+
+	/**
+	 * Returns the client that last served data and marks the hint referenced
+	 * @param data
+	 * @return client index if there is a hint. Else returns Integer.MIN_VALUE
+	 */
+	public int get(int data) {
+		int base = setOf(data) * WAYS;
+		for (int way = 0; way < WAYS; way++) {
+			long entry = entries.get(base + way);
+			if (matches(entry, data)) {
+				if ((entry & REFERENCED) == 0) {
+					entries.compareAndSet(base + way, entry, entry | REFERENCED);
+				}
+				return (int) (entry & CLIENT_MASK);
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Records that the client served data. An empty entry of the set is used
+	 * first, then the first entry CLOCK finds unreferenced.
+	 * @param data
+	 * @param clientIndex
+	 */
+	public void put(int data, int clientIndex) {
+		int set = setOf(data);
+		int base = set * WAYS;
+		long hint = ((long) data << 32) | VALID | clientIndex;
+
+		for (int way = 0; way < WAYS; way++) {
+			long entry = entries.get(base + way);
+			if (matches(entry, data)) {
+				if (entry != (hint | REFERENCED)) {
+					entries.compareAndSet(base + way, entry, hint | REFERENCED);
+				}
+				return;
+			}
+		}
+		for (int way = 0; way < WAYS; way++) {
+			long entry = entries.get(base + way);
+			if ((entry & VALID) == 0 && entries.compareAndSet(base + way, entry, hint)) {
+				return;
+			}
+		}
+//		Every entry gets a second chance, so 2 sweeps always find a victim unless other threads reference it again
+		for (int sweep = 0; sweep < 2 * WAYS; sweep++) {
+			int index = base + (hands.getAndIncrement(set) & (WAYS - 1));
+			long entry = entries.get(index);
+			if ((entry & REFERENCED) != 0) {
+				entries.compareAndSet(index, entry, entry & ~REFERENCED);
+			} else if (entries.compareAndSet(index, entry, hint)) {
+				return;
+			}
+		}
+		entries.set(base + (hands.getAndIncrement(set) & (WAYS - 1)), hint);
+	}
+
+	/**
+	 * Drops the hint of data if it still points to the client
+	 * @param data
+	 * @param clientIndex which turned out not to have the data
+	 */
+	public void invalidate(int data, int clientIndex) {
+		int base = setOf(data) * WAYS;
+		for (int way = 0; way < WAYS; way++) {
+			long entry = entries.get(base + way);
+			if (matches(entry, data) && (int) (entry & CLIENT_MASK) == clientIndex) {
+				entries.compareAndSet(base + way, entry, 0);
+			}
+		}
+	}
+
+	private static boolean matches(long entry, int data) {
+		return (entry & VALID) != 0 && (int) (entry >>> 32) == data;
+	}
+
+	private int setOf(int data) {
+		int h = data * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & setMask;
+	}
+}
@@ -0,0 +1,158 @@
+package com.capstone.simulation.proxy;
+
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts how many clients cache each data block, and indexes the
+ * blocks cached by 2 or more clients in buckets by count so the most
+ * replicated block is found without scanning all the blocks.
+ *
+ * A count and the bucket of its block are updated together under a lock
+ * striped by block id. Each bucket is guarded by its own monitor, and a
+ * bitmap of non empty buckets finds the highest one in a few words.
+ * Counts above maxTrackedCount share the highest bucket.
+ *
+ * Counts are kept in an atomic array when the disk is small enough, and in a
+ * primitive hash store otherwise.
+ */
+public class OccurrenceIndex {
+
+	private static final int STRIPES = 64; // Power of 2
+	private static final int MIN_VICTIM_COUNT = 2; // Blocks with fewer copies are singlets
+	public static final int MAX_ARRAY_STORE_SIZE = 1 << 24; // Largest disk counted in an array
+
+	private OccurrenceStore counts;
+	private Object[] stripes;
+	private LinkedHashSet<Integer>[] buckets; // Blocks by count, oldest first
+	private AtomicLongArray nonEmptyBuckets;
+	private int maxTrackedCount;
+
+	/**
+	 * Constructor
+	 * @param diskSize data blocks are in [0, diskSize), 0 if unknown
+	 * @param initialCapacity expected number of blocks
+	 * @param maxTrackedCount highest count with its own bucket, usually the number of clients
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public OccurrenceIndex(int diskSize, int initialCapacity, int maxTrackedCount) {
+		this.maxTrackedCount = Math.max(MIN_VICTIM_COUNT, maxTrackedCount);
+		if (diskSize > 0 && diskSize <= MAX_ARRAY_STORE_SIZE) {
+			counts = new ArrayOccurrenceStore(diskSize);
+		} else {
+			counts = new HashOccurrenceStore(initialCapacity);
+		}
+		stripes = new Object[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Object();
+		}
+		buckets = new LinkedHashSet[this.maxTrackedCount + 1];
+		for (int i = MIN_VICTIM_COUNT; i < buckets.length; i++) {
+			buckets[i] = new LinkedHashSet<Integer>();
+		}
+		nonEmptyBuckets = new AtomicLongArray((buckets.length + 63) / 64);
+	}
+
+	/**
+	 * Adds a copy of data. Data not counted yet gets a count of 1.
+	 * @param data
+	 */
+	public void increment(int data) {
+		synchronized (stripes[data & (STRIPES - 1)]) {
+			int count = counts.increment(data);
+			move(data, count - 1, count);
+		}
+	}
+
+	/**
+	 * Removes a copy of data. Data not counted is ignored.
+	 * @param data
+	 */
+	public void decrement(int data) {
+		synchronized (stripes[data & (STRIPES - 1)]) {
+			int count = counts.decrement(data);
+			if (count != OccurrenceStore.ABSENT) {
+				move(data, count + 1, count);
+			}
+		}
+	}
+
+	public boolean contains(int data) {
+		return counts.get(data) != OccurrenceStore.ABSENT;
+	}
+
+	/**
+	 * @param data
+	 * @return the count of data, 0 if it is not counted
+	 */
+	public int getCount(int data) {
+		int count = counts.get(data);
+		return count == OccurrenceStore.ABSENT ? 0 : count;
+	}
+
+	/**
+	 * Returns the block cached by the most clients, among blocks cached by at
+	 * least 2
+	 * @return the block, Integer.MIN_VALUE if there is none
+	 */
+	public int getMostReplicated() {
+		for (int word = nonEmptyBuckets.length() - 1; word >= 0; word--) {
+			long bits = nonEmptyBuckets.get(word);
+			while (bits != 0) {
+				int bit = 63 - Long.numberOfLeadingZeros(bits);
+				LinkedHashSet<Integer> bucket = buckets[(word << 6) + bit];
+				synchronized (bucket) {
+					if (!bucket.isEmpty()) {
+						return bucket.iterator().next();
+					}
+				}
+//				Emptied since the bitmap was read
+				bits &= ~(1L << bit);
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	private void move(int data, int previous, int count) {
+		int from = bucketIndex(previous);
+		int to = bucketIndex(count);
+		if (from == to) {
+			return;
+		}
+		if (from >= 0) {
+			LinkedHashSet<Integer> bucket = buckets[from];
+			synchronized (bucket) {
+				if (bucket.remove(data) && bucket.isEmpty()) {
+					updateBit(from, false);
+				}
+			}
+		}
+		if (to >= 0) {
+			LinkedHashSet<Integer> bucket = buckets[to];
+			synchronized (bucket) {
+				if (bucket.add(data) && bucket.size() == 1) {
+					updateBit(to, true);
+				}
+			}
+		}
+	}
+
+	private int bucketIndex(int count) {
+		return count < MIN_VICTIM_COUNT ? -1 : Math.min(count, maxTrackedCount);
+	}
+
+	/**
+	 * Sets or clears the bit of a bucket. Called under the bucket monitor.
+	 */
+	private void updateBit(int bucket, boolean set) {
+		int word = bucket >>> 6;
+		long mask = 1L << (bucket & 63);
+		while (true) {
+			long current = nonEmptyBuckets.get(word);
+			long updated = set ? (current | mask) : (current & ~mask);
+			if (current == updated || nonEmptyBuckets.compareAndSet(word, current, updated)) {
+				return;
+			}
+		}
+	}
+}
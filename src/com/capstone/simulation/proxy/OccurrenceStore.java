@@ -0,0 +1,31 @@
+package com.capstone.simulation.proxy;
+
+/**
+ * Store of the occurrence count of each data block, keyed by primitive ints.
+ * Updates of a block are atomic. A block is absent until it is first
+ * incremented and is never removed afterwards.
+ */
+public interface OccurrenceStore {
+
+	public static final int ABSENT = Integer.MIN_VALUE;
+
+	/**
+	 * Adds 1 to the count of data, starting at 1 if data is absent
+	 * @param data
+	 * @return the new count
+	 */
+	public int increment(int data);
+
+	/**
+	 * Subtracts 1 from the count of data if it is present
+	 * @param data
+	 * @return the new count, ABSENT if data is absent
+	 */
+	public int decrement(int data);
+
+	/**
+	 * @param data
+	 * @return the count of data, ABSENT if data is absent
+	 */
+	public int get(int data);
+}
@@ -3,24 +3,28 @@ package com.capstone.simulation.proxy;
 import com.capstone.simulation.bloomfilters.BloomFilter;
 import com.capstone.simulation.client.Client;
 import com.capstone.simulation.data.Forward;
+import com.capstone.simulation.metrics.MetricsRegistry;
+import com.capstone.simulation.utility.CandidateSelection;
+import com.capstone.simulation.utility.Hash;
 
 public interface Proxy {
 
 	public void setNumberOfClients(int numberOfClients);
-	public void setHitCount(int value);
-	public void setMissCount(int value);
-	public void setDiskAccessCount(int diskAccessCount);
+	public void setHash(Hash hash);
+	public void setMetrics(MetricsRegistry metrics);
+	public MetricsRegistry getMetrics();
 	public void setClients(Client[] clients);
+	public void setDiskSize(int diskSize);
 	public void setSingletMap();
-	public int getHitCount();
-	public void hitOccured();
+	public void setHintCache(HintCache hintCache);
+	public void setCandidateSelection(CandidateSelection candidateSelection);
 	public void setBloomFilterSize(int bloomFilterSize);
 	public void setBloomFilters();
+	public void copyBloomFilters(Proxy warmProxy);
 	public BloomFilter[] getBloomFilters();
-	public int getMissCount();
-	public int getDiskAccessCount();
 	public void receiveDataRequest(int clientId, int data);
 	public void addDataToBloomFilter(int clientId, int data, int importance);
+	public void removeDataFromBloomFilter(int clientId, int data);
 	public boolean isDataSinglet(int clientId, int data);
 	public void updateSingletMap(int data, boolean increment);
 	public Forward getVictim(int clientId);
@@ -29,4 +33,5 @@ public interface Proxy {
 	public int getSequenceOccurrence(int firstBlock);
 	public void printBloomFilters();
 	public int getAvgZeroCells();
+	public double getFalsePositiveRate();
 }
@@ -0,0 +1,130 @@
+package com.capstone.simulation.proxy;
+
+import com.capstone.simulation.bloomfilters.BitSlicedBloomDirectory;
+import com.capstone.simulation.bloomfilters.CountingBloomFilter;
+import com.capstone.simulation.metrics.Metric;
+import com.capstone.simulation.utility.Hash;
+
+/**
+ * This is the singleton implementation of proxy that keeps a counting bloom
+ * filter per client. Data evicted from a client cache is removed from its
+ * filter, so the filters don't saturate over a long run.
+ *
+ * A shadow directory that is never cleared tracks what a standard bloom filter
+ * would hold, to count the false forwards the counting filters avoid.
+ */
+public class ProxyCBF extends AbstractProxy {
+
+	private CountingBloomFilter[] bloomFilters;
+	private BitSlicedBloomDirectory standardDirectory; // Bits are only ever set, as in a standard bloom filter
+
+	private static final ProxyCBF proxy = new ProxyCBF();
+
+	ProxyCBF() {
+
+	}
+
+	public static ProxyCBF getInstance() {
+		return proxy;
+	}
+
+	/**
+	 * Adds data to bloom filter set
+	 *
+	 * @param clientId
+	 *            whose bloom filter is being updated
+	 * @param data
+	 *            which is being added to the bloom filter
+	 */
+	public void addDataToBloomFilter(int clientId, int data, int importance) {
+		Hash hash = getHash();
+		long pair = hash.hashPair(data);
+		for (int i = 0; i < hash.getHashFunctionsCount(); i++) {
+			int position = Hash.probe(pair, i);
+			bloomFilters[clientId - 1].increment(position);
+			standardDirectory.setBit(clientId - 1, position);
+		}
+	}
+
+	/**
+	 * Removes evicted data from bloom filter set
+	 *
+	 * @param clientId
+	 *            whose bloom filter is being updated
+	 * @param data
+	 *            which has been evicted from the client cache
+	 */
+	@Override
+	public void removeDataFromBloomFilter(int clientId, int data) {
+		Hash hash = getHash();
+		long pair = hash.hashPair(data);
+		for (int i = 0; i < hash.getHashFunctionsCount(); i++) {
+			bloomFilters[clientId - 1].decrement(Hash.probe(pair, i));
+		}
+	}
+
+	/**
+	 * Counts the clients whose standard filter matches data while their
+	 * counting filter doesn't. A standard filter only ever gains bits, so it
+	 * matches every client the counting filter matches.
+	 */
+	@Override
+	protected void countAvoidedFalseForwards(int clientIndex, int data) {
+		long pair = getHash().hashPair(data);
+		int hashCount = getHash().getHashFunctionsCount();
+		int avoided = standardDirectory.countClients(pair, hashCount, clientIndex)
+				- getDirectory().countClients(pair, hashCount, clientIndex);
+//		A concurrent insert can reach the counting filter before the standard one
+		if (avoided > 0) {
+			getMetrics().add(Metric.AvoidedFalseForwards, clientIndex, avoided);
+		}
+	}
+
+	/**
+	 * @return the bloomFilters
+	 */
+	public CountingBloomFilter[] getBloomFilters() {
+		return bloomFilters;
+	}
+
+	/**
+	 * Initializes bloom filters for all the clients on proxy
+	 */
+	public void setBloomFilters() {
+		int clientSize = getNumberOfClients();
+		this.bloomFilters = new CountingBloomFilter[clientSize];
+		BitSlicedBloomDirectory directory = new BitSlicedBloomDirectory(getBloomFilterSize(), clientSize);
+		this.standardDirectory = new BitSlicedBloomDirectory(getBloomFilterSize(), clientSize);
+
+		for (int i = 0; i < clientSize; i++) {
+			bloomFilters[i] = new CountingBloomFilter(getBloomFilterSize());
+			bloomFilters[i].attachDirectory(directory, i);
+		}
+		setDirectory(directory);
+	}
+
+	/**
+	 * Starts from a copy of the filters of a warmed up proxy
+	 * @param warmProxy proxy of the same type and size
+	 */
+	public void copyBloomFilters(Proxy warmProxy) {
+		ProxyCBF warm = (ProxyCBF) warmProxy;
+		BitSlicedBloomDirectory directory = warm.getDirectory().copy();
+		this.bloomFilters = new CountingBloomFilter[warm.bloomFilters.length];
+		for (int i = 0; i < bloomFilters.length; i++) {
+			bloomFilters[i] = warm.bloomFilters[i].copy(directory);
+		}
+		this.standardDirectory = warm.standardDirectory.copy();
+		setDirectory(directory);
+	}
+
+	@Override
+	public int getAvgZeroCells() {
+		int sum = 0;
+		for (int i = 0; i < bloomFilters.length; i++) {
+			sum += bloomFilters[i].getZeroCounters();
+		}
+		return sum / bloomFilters.length;
+	}
+
+}
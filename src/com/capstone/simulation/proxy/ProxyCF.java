@@ -0,0 +1,159 @@
+package com.capstone.simulation.proxy;
+
+import com.capstone.simulation.bloomfilters.CuckooFilter;
+import com.capstone.simulation.utility.Hash;
+
+/**
+ * This is the singleton implementation of proxy that keeps a cuckoo filter
+ * per client. Data evicted from a client cache is deleted from its filter.
+ * A lookup computes the fingerprint and both bucket indexes once and reads 2
+ * buckets of every client filter.
+ */
+public class ProxyCF extends AbstractProxy {
+
+	private static final double LOAD_FACTOR = 0.8;
+
+	private CuckooFilter[] bloomFilters;
+
+	private static final ProxyCF proxy = new ProxyCF();
+
+	ProxyCF() {
+
+	}
+
+	public static ProxyCF getInstance() {
+		return proxy;
+	}
+
+	/**
+	 * Adds data to the cuckoo filter of the client
+	 *
+	 * @param clientId
+	 *            whose filter is being updated
+	 * @param data
+	 *            which is being added to the filter
+	 */
+	public void addDataToBloomFilter(int clientId, int data, int importance) {
+		bloomFilters[clientId - 1].add(hashOf(data));
+	}
+
+	/**
+	 * Deletes evicted data from the cuckoo filter of the client
+	 *
+	 * @param clientId
+	 *            whose filter is being updated
+	 * @param data
+	 *            which has been evicted from the client cache
+	 */
+	@Override
+	public void removeDataFromBloomFilter(int clientId, int data) {
+		bloomFilters[clientId - 1].remove(hashOf(data));
+	}
+
+	/**
+	 * Iterates through the client cuckoo filters from fromClientId onwards to
+	 * find the first one holding the fingerprint of data in either bucket.
+	 *
+	 * @param data
+	 *            The data which is being searched
+	 * @return clientId if data is found. Else returns Integer.MIN_VALUE
+	 */
+	@Override
+	public int lookForData(int clientId, int data, int fromClientId) {
+		int hash = hashOf(data);
+		int fingerprint = CuckooFilter.fingerprint(hash);
+//		All the filters have the same number of buckets
+		int index1 = bloomFilters[0].bucketIndex(hash);
+		int index2 = bloomFilters[0].alternateIndex(index1, fingerprint);
+
+		for (int bfIndex = Math.max(0, fromClientId); bfIndex < getNumberOfClients(); bfIndex++) {
+			if (bfIndex != clientId && bloomFilters[bfIndex].contains(fingerprint, index1, index2)) {
+				return bfIndex;
+			}
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Collects every client filter holding the fingerprint of data, computing
+	 * the fingerprint and bucket indexes once
+	 */
+	@Override
+	protected int findClients(int clientIndex, int data, int[] matches) {
+		int hash = hashOf(data);
+		int fingerprint = CuckooFilter.fingerprint(hash);
+		int index1 = bloomFilters[0].bucketIndex(hash);
+		int index2 = bloomFilters[0].alternateIndex(index1, fingerprint);
+
+		int count = 0;
+		for (int bfIndex = 0; bfIndex < getNumberOfClients(); bfIndex++) {
+			if (bfIndex != clientIndex && bloomFilters[bfIndex].contains(fingerprint, index1, index2)) {
+				matches[count++] = bfIndex;
+			}
+		}
+		return count;
+	}
+
+	private int hashOf(int data) {
+		return Hash.probe(getHash().hashPair(data), 0);
+	}
+
+	/**
+	 * @return the bloomFilters
+	 */
+	public CuckooFilter[] getBloomFilters() {
+		return bloomFilters;
+	}
+
+	/**
+	 * Initializes cuckoo filters for all the clients on proxy. Filters get the
+	 * same number of bits as a bloom filter of bloomFilterSize, but never
+	 * fewer buckets than the client cache needs.
+	 */
+	public void setBloomFilters() {
+		int clientSize = getNumberOfClients();
+		int buckets = (int) Math.ceil((double) getBloomFilterSize() / (CuckooFilter.SLOTS_PER_BUCKET * CuckooFilter.FINGERPRINT_BITS));
+		if (getClients() != null && getClients().length > 0) {
+			buckets = Math.max(buckets, CuckooFilter.bucketsFor(getClients()[0].getCacheSize(), LOAD_FACTOR));
+		}
+		this.bloomFilters = new CuckooFilter[clientSize];
+
+		for (int i = 0; i < clientSize; i++) {
+			bloomFilters[i] = new CuckooFilter(buckets);
+		}
+	}
+
+	/**
+	 * Starts from a copy of the filters of a warmed up proxy
+	 * @param warmProxy proxy of the same type and size
+	 */
+	public void copyBloomFilters(Proxy warmProxy) {
+		CuckooFilter[] warmFilters = ((ProxyCF) warmProxy).getBloomFilters();
+		this.bloomFilters = new CuckooFilter[warmFilters.length];
+		for (int i = 0; i < warmFilters.length; i++) {
+			bloomFilters[i] = warmFilters[i].copy();
+		}
+	}
+
+	/**
+	 * Estimates the false positive rate from the average load of the filters:
+	 * a lookup compares the fingerprint with the 2 * 4 slots of its buckets.
+	 */
+	@Override
+	public double getFalsePositiveRate() {
+		int slots = bloomFilters[0].getNumberOfBuckets() * CuckooFilter.SLOTS_PER_BUCKET;
+		double load = 1 - (double) getAvgZeroCells() / slots;
+		double comparisons = 2 * CuckooFilter.SLOTS_PER_BUCKET * load;
+		return 1 - Math.pow(1 - 1.0 / ((1 << CuckooFilter.FINGERPRINT_BITS) - 1), comparisons);
+	}
+
+	@Override
+	public int getAvgZeroCells() {
+		int sum = 0;
+		for (int i = 0; i < bloomFilters.length; i++) {
+			sum += bloomFilters[i].getNumberOfBuckets() * CuckooFilter.SLOTS_PER_BUCKET - bloomFilters[i].getCount();
+		}
+		return sum / bloomFilters.length;
+	}
+
+}
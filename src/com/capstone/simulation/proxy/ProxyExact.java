@@ -0,0 +1,115 @@
+package com.capstone.simulation.proxy;
+
+import com.capstone.simulation.bloomfilters.BloomFilter;
+import com.capstone.simulation.bloomfilters.ExactDirectory;
+
+/**
+ * This is the singleton implementation of proxy that knows exactly which
+ * clients cache each data block, instead of summarizing client caches in
+ * bloom filters. Clients update the directory when they cache and evict
+ * data, so a lookup never forwards to a client without the data.
+ *
+ * It is the baseline the bloom filter proxies are compared against.
+ */
+public class ProxyExact extends AbstractProxy {
+
+	private ExactDirectory exactDirectory;
+
+	private static final ProxyExact proxy = new ProxyExact();
+
+	ProxyExact() {
+
+	}
+
+	public static ProxyExact getInstance() {
+		return proxy;
+	}
+
+	/**
+	 * Records that the client caches data
+	 *
+	 * @param clientId
+	 *            whose cache is updated
+	 * @param data
+	 *            which is being cached
+	 */
+	public void addDataToBloomFilter(int clientId, int data, int importance) {
+		exactDirectory.add(clientId - 1, data);
+	}
+
+	/**
+	 * Records that the client evicted data
+	 *
+	 * @param clientId
+	 *            whose cache is updated
+	 * @param data
+	 *            which has been evicted from the client cache
+	 */
+	@Override
+	public void removeDataFromBloomFilter(int clientId, int data) {
+		exactDirectory.remove(clientId - 1, data);
+	}
+
+	/**
+	 * Finds the first client from fromClientId onwards that caches data
+	 *
+	 * @param data
+	 *            The data which is being searched
+	 * @return clientId if data is found. Else returns Integer.MIN_VALUE
+	 */
+	@Override
+	public int lookForData(int clientId, int data, int fromClientId) {
+		return exactDirectory.findClient(data, fromClientId, clientId);
+	}
+
+	/**
+	 * Collects every client that caches data
+	 */
+	@Override
+	protected int findClients(int clientIndex, int data, int[] matches) {
+		return exactDirectory.findClients(data, clientIndex, matches);
+	}
+
+	/**
+	 * @return the directory as the only filter
+	 */
+	public BloomFilter[] getBloomFilters() {
+		return new BloomFilter[] {exactDirectory};
+	}
+
+	/**
+	 * Initializes the directory for all the data blocks of the disk
+	 */
+	public void setBloomFilters() {
+		this.exactDirectory = new ExactDirectory(getDiskSize(), getNumberOfClients());
+	}
+
+	/**
+	 * Starts from a copy of the directory of a warmed up proxy
+	 * @param warmProxy proxy of the same type and size
+	 */
+	public void copyBloomFilters(Proxy warmProxy) {
+		this.exactDirectory = ((ProxyExact) warmProxy).exactDirectory.copy();
+	}
+
+	/**
+	 * Lookups are exact
+	 */
+	@Override
+	public double getFalsePositiveRate() {
+		return 0;
+	}
+
+	/**
+	 * @return the average number of disk blocks a client doesn't cache
+	 */
+	@Override
+	public int getAvgZeroCells() {
+		long sum = 0;
+		for (int i = 0; i < getNumberOfClients(); i++) {
+			sum += getDiskSize() - exactDirectory.getCachedCount(i);
+		}
+		return (int) (sum / getNumberOfClients());
+	}
+
+}
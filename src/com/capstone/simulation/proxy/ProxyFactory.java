@@ -16,6 +16,56 @@ public class ProxyFactory {
 				proxy = ProxyIBF.getInstance();
 				break;
 				
+			case Counting:
+				proxy = ProxyCBF.getInstance();
+				break;
+				
+			case Cuckoo:
+				proxy = ProxyCF.getInstance();
+				break;
+				
+			case Exact:
+				proxy = ProxyExact.getInstance();
+				break;
+				
+			default:
+				System.out.println("Bloom filter type not allowed");
+				System.exit(0);
+				break;
+		}
+		return proxy;
+	}
+
+	/**
+	 * Builds a new proxy of the bloom filter type, so experiments running
+	 * at the same time don't share one
+	 * @param bloomFilterType
+	 * @return
+	 */
+	public static Proxy createProxy(BloomFilterType bloomFilterType) {
+		Proxy proxy = null;
+		
+		switch (bloomFilterType) {
+			case Standard:
+				proxy = new ProxyBF();
+				break;
+				
+			case IBF:
+				proxy = new ProxyIBF();
+				break;
+				
+			case Counting:
+				proxy = new ProxyCBF();
+				break;
+				
+			case Cuckoo:
+				proxy = new ProxyCF();
+				break;
+				
+			case Exact:
+				proxy = new ProxyExact();
+				break;
+				
 			default:
 				System.out.println("Bloom filter type not allowed");
 				System.exit(0);
@@ -0,0 +1,6 @@
+package com.capstone.simulation.utility;
+
+public enum BloomFilterSizing {
+	DiskSize,
+	FalsePositiveRate
+}
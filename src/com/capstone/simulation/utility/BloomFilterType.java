@@ -3,5 +3,8 @@ package com.capstone.simulation.utility;
 public enum BloomFilterType {
 
 	Standard,
-	IBF
+	IBF,
+	Counting,
+	Cuckoo,
+	Exact
 }
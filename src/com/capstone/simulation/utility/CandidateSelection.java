@@ -0,0 +1,9 @@
+package com.capstone.simulation.utility;
+
+public enum CandidateSelection {
+	LowestIndex, // First matching filter from the first client
+	RotatingStart, // First matching filter from an offset that moves on every request
+	RandomMatch, // Any matching filter
+	LeastOutstanding, // Matching client with the fewest forwards in progress
+	PowerOfTwoChoices // Less loaded of 2 random matching clients
+}
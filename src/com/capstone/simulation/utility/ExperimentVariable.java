@@ -2,5 +2,6 @@ package com.capstone.simulation.utility;
 
 public enum ExperimentVariable {
 	NumberOfClients,
-	CacheSize
+	CacheSize,
+	Grid // Every combination of the client sizes, cache sizes and the grid lists
 }
@@ -1,13 +1,15 @@
 package com.capstone.simulation.utility;
 
-import java.nio.ByteBuffer;
-
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
-
 public class Hash {
 	private final static int DATA_SIZE = 4; // Represents data size of int in bytes
+	private final static long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private final static long MULTIPLIER_1 = 0x9E3779B97F4A7C15L; // Odd multipliers of the multiply shift family
+	private final static long MULTIPLIER_2 = 0xC2B2AE3D27D4EB4FL;
+	private final static long ADDEND_1 = 0x632BE59BD9B4E019L;
+	private final static long ADDEND_2 = 0x85157AF5D2A9E0D1L;
 	private int hashFunctionsCount = 3;
+	private HashFamily hashFamily = HashFamily.JenkinsMurmur;
+	private volatile HashIndex hashIndex; // Precomputed hash pairs, null when hashing on the fly
 	
 	private static final Hash hash = new Hash();
 
@@ -19,6 +21,19 @@ public class Hash {
 		return hash;
 	}
 	
+	/**
+	 * Returns a new Hash with the same family, index and number of hash
+	 * functions, for an experiment that runs beside others
+	 * @return
+	 */
+	public Hash copy() {
+		Hash copy = new Hash();
+		copy.hashFunctionsCount = hashFunctionsCount;
+		copy.hashFamily = hashFamily;
+		copy.hashIndex = hashIndex;
+		return copy;
+	}
+	
 	/**
 	 * @return the hashFunctionsCount
 	 */
@@ -33,6 +48,37 @@ public class Hash {
 		this.hashFunctionsCount = hashFunctionsCount;
 	}
 
+	/**
+	 * @return the hashFamily
+	 */
+	public HashFamily getHashFamily() {
+		return hashFamily;
+	}
+
+	/**
+	 * Sets the hash family. The hash index holds pairs of the previous family,
+	 * so it is dropped.
+	 * @param hashFamily the hashFamily to set
+	 */
+	public void setHashFamily(HashFamily hashFamily) {
+		this.hashFamily = hashFamily;
+		this.hashIndex = null;
+	}
+
+	/**
+	 * @return the hashIndex
+	 */
+	public HashIndex getHashIndex() {
+		return hashIndex;
+	}
+
+	/**
+	 * @param hashIndex the hashIndex to set, null to hash on the fly
+	 */
+	public void setHashIndex(HashIndex hashIndex) {
+		this.hashIndex = hashIndex;
+	}
+
 	/**
      * Returns a 32-bit hash value.
      *
@@ -160,16 +206,140 @@ public class Hash {
 	 * @param data for which hash values are calculated
 	 * @return hash values as array of integers
 	 */
-    public synchronized int[] generateHashValues(int data) {
+    public int[] generateHashValues(int data) {
     	int[] hashValues = new int[getHashFunctionsCount()];
-		byte[] dataBytes = ByteBuffer.allocate(DATA_SIZE).putInt(data).array();
-		HashFunction murmur = Hashing.murmur3_32();
-
-		for (int i = 0; i < hashValues.length; i++) {
-			hashValues[i] = (Hash.jenkins32(dataBytes) + i * murmur.hashInt(data).asInt());
-//			System.out.println("Generated " + i + "th hash " + hashValues[i] + " for data " + data);
-		}
+    	generateHashValues(data, hashValues);
 		return hashValues;
     }
     
+    /**
+     * Calculates hash values for the data into a buffer owned by the caller.
+     * Nothing is allocated and no lock is taken.
+     * @param data for which hash values are calculated
+     * @param hashValues buffer of at least getHashFunctionsCount() values
+     * @return number of hash values written
+     */
+    public int generateHashValues(int data, int[] hashValues) {
+    	long pair = hashPair(data);
+    	int count = getHashFunctionsCount();
+    	for (int i = 0; i < count; i++) {
+    		hashValues[i] = probe(pair, i);
+    	}
+    	return count;
+    }
+    
+    /**
+     * Returns both base hashes of the data packed in a long: h1 in the high 32
+     * bits and h2 in the low 32 bits. The i-th hash value is then h1 + i * h2,
+     * see probe. The pair is read from the hash index when data is in it.
+     * @param data
+     * @return
+     */
+    public long hashPair(int data) {
+    	HashIndex index = hashIndex;
+    	if (index != null && index.contains(data)) {
+    		return index.get(data);
+    	}
+    	return computeHashPair(data);
+    }
+    
+    /**
+     * Computes the hash pair of data with the hash family, without the hash
+     * index. JenkinsMurmur packs the jenkins and murmur3 hashes, SplitMix64
+     * splits one 64 bit mix of data and MultiplyShift takes the high 32 bits
+     * of a * data + b for two odd multipliers a.
+     * @param data
+     * @return
+     */
+    public long computeHashPair(int data) {
+    	switch (hashFamily) {
+    	case SplitMix64:
+    		return splitMix64(data);
+    	case MultiplyShift:
+    		return ((MULTIPLIER_1 * data + ADDEND_1) & 0xFFFFFFFF00000000L) | ((MULTIPLIER_2 * data + ADDEND_2) >>> 32);
+    	case JenkinsMurmur:
+    	default:
+    		return ((long) jenkins32(data) << 32) | (murmur32(data) & 0xFFFFFFFFL);
+    	}
+    }
+    
+    /**
+     * Returns the i-th hash value of a pair returned by hashPair
+     * @param pair
+     * @param i
+     * @return
+     */
+    public static int probe(long pair, int i) {
+    	return (int) (pair >>> 32) + i * (int) pair;
+    }
+    
+    /**
+     * Jenkins hash of the 4 big endian bytes of data, same as
+     * jenkins32(ByteBuffer.allocate(4).putInt(data).array()) without the
+     * array. Bytes are sign extended as in jenkins.
+     * @param data
+     * @return
+     */
+    public static int jenkins32(int data) {
+    	int a, b, c;
+    	a = b = c = 0xdeadbeef + DATA_SIZE;
+    	
+    	a += ((byte) data) << 24;
+    	a += ((byte) (data >> 8)) << 16;
+    	a += ((byte) (data >> 16)) << 8;
+    	a += (byte) (data >> 24);
+    	
+    	c ^= b;
+    	c -= Integer.rotateLeft(b, 14);
+    	a ^= c;
+    	a -= Integer.rotateLeft(c, 11);
+    	b ^= a;
+    	b -= Integer.rotateLeft(a, 25);
+    	c ^= b;
+    	c -= Integer.rotateLeft(b, 16);
+    	a ^= c;
+    	a -= Integer.rotateLeft(c, 4);
+    	b ^= a;
+    	b -= Integer.rotateLeft(a, 14);
+    	c ^= b;
+    	c -= Integer.rotateLeft(b, 24);
+    	return c;
+    }
+    
+    /**
+     * Finalizer of the splitmix64 generator applied to data
+     * @param data
+     * @return
+     */
+    public static long splitMix64(int data) {
+    	long z = data + GOLDEN_GAMMA;
+    	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    	return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Murmur3 32 bit hash of an int with seed 0, same as
+     * Hashing.murmur3_32().hashInt(data).asInt() without the HashCode object.
+     * @param data
+     * @return
+     */
+    public static int murmur32(int data) {
+    	int k1 = data * 0xcc9e2d51;
+    	k1 = Integer.rotateLeft(k1, 15);
+    	k1 *= 0x1b873593;
+    	
+    	int h1 = k1;
+    	h1 = Integer.rotateLeft(h1, 13);
+    	h1 = h1 * 5 + 0xe6546b64;
+    	
+    	h1 ^= DATA_SIZE;
+    	h1 ^= h1 >>> 16;
+    	h1 *= 0x85ebca6b;
+    	h1 ^= h1 >>> 13;
+    	h1 *= 0xc2b2ae35;
+    	h1 ^= h1 >>> 16;
+    	return h1;
+    }
+    
 }
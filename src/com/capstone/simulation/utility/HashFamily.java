@@ -0,0 +1,7 @@
+package com.capstone.simulation.utility;
+
+public enum HashFamily {
+	JenkinsMurmur,
+	SplitMix64,
+	MultiplyShift
+}
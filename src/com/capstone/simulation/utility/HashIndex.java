@@ -0,0 +1,104 @@
+package com.capstone.simulation.utility;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * This class holds the packed hash pair of every data block in [0, size),
+ * computed once so lookups and bloom filter updates read it instead of
+ * hashing. A pair is a single long from which all the hash values are
+ * derived, see Hash.probe, so the table doesn't depend on the number of hash
+ * functions.
+ *
+ * Large tables are kept off heap in a direct buffer. The table is filled by
+ * one thread per processor.
+ */
+public class HashIndex {
+
+	public static final int OFF_HEAP_THRESHOLD = 1 << 20; // Number of data blocks above which the table is off heap
+	public static final int MAX_SIZE = Integer.MAX_VALUE / Long.BYTES; // Largest direct buffer
+
+	private int size;
+	private long[] pairs;
+	private LongBuffer offHeapPairs;
+
+	/**
+	 * Constructor
+	 * @param size number of data blocks, at most MAX_SIZE
+	 */
+	public HashIndex(int size) {
+		if (size < 0 || size > MAX_SIZE) {
+			throw new IllegalArgumentException("Hash index size out of range: " + size);
+		}
+		this.size = size;
+		if (size > OFF_HEAP_THRESHOLD) {
+			offHeapPairs = ByteBuffer.allocateDirect(size * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+		} else {
+			pairs = new long[size];
+		}
+	}
+
+	/**
+	 * Builds the index of all the data blocks in [0, size) for the hash
+	 * @param size
+	 * @param hash
+	 * @return
+	 */
+	public static HashIndex build(int size, final Hash hash) {
+		final HashIndex index = new HashIndex(size);
+		int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size / 4096));
+		int chunk = (size + threadCount - 1) / threadCount;
+		Thread[] threads = new Thread[threadCount];
+
+		for (int t = 0; t < threadCount; t++) {
+			final int from = t * chunk;
+			final int to = Math.min(size, from + chunk);
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int data = from; data < to; data++) {
+						index.set(data, hash.computeHashPair(data));
+					}
+				}
+			});
+			threads[t].start();
+		}
+
+		for (int t = 0; t < threadCount; t++) {
+			try {
+				threads[t].join();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @return the number of data blocks in the index
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public boolean isOffHeap() {
+		return offHeapPairs != null;
+	}
+
+	public boolean contains(int data) {
+		return data >= 0 && data < size;
+	}
+
+	public long get(int data) {
+		return pairs != null ? pairs[data] : offHeapPairs.get(data);
+	}
+
+	private void set(int data, long pair) {
+		if (pairs != null) {
+			pairs[data] = pair;
+		} else {
+			offHeapPairs.put(data, pair);
+		}
+	}
+}
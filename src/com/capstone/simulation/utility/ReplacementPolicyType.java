@@ -0,0 +1,9 @@
+package com.capstone.simulation.utility;
+
+public enum ReplacementPolicyType {
+	LRU, // Least recently used block
+	CLOCK, // Second chance over the cache slots
+	ARC, // Adaptive between recency and frequency with ghost lists
+	TwoQ, // FIFO for new blocks, LRU for blocks referenced again
+	LFU // Fewest accesses, oldest timestamp on a tie
+}
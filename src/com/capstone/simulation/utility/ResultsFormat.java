@@ -0,0 +1,6 @@
+package com.capstone.simulation.utility;
+
+public enum ResultsFormat {
+	CSV,
+	JSON // One JSON object per line
+}
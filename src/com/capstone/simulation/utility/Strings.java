@@ -26,4 +26,30 @@ public class Strings {
 	public static final String one = "1";
 	
 	public static final String requestSizeFactor = "RequestSize";
+	
+	public static final String ibfDecayInterval = "IBFDecayInterval";
+	
+	public static final String bloomFilterSizing = "BloomFilterSizing";
+	public static final String targetFalsePositiveRate = "TargetFalsePositiveRate";
+	public static final String defaultFalsePositiveRate = "0.01";
+	
+	public static final String hashFamily = "HashFamily";
+	public static final String precomputeHashes = "PrecomputeHashes";
+	public static final String hashIndexMaxSize = "HashIndexMaxSize";
+	public static final String defaultHashIndexMaxSize = "16777216";
+	
+	public static final String metricsInterval = "MetricsInterval";
+	public static final String hintCacheSize = "HintCacheSize";
+	public static final String candidateSelection = "CandidateSelection";
+	public static final String replacementPolicy = "ReplacementPolicy";
+	public static final String sweepParallelism = "SweepParallelism";
+	public static final String shareWarmState = "ShareWarmState";
+	
+	public static final String workload = "Workload";
+	public static final String gridAlgorithms = "GridAlgorithms";
+	public static final String gridBloomFilterTypes = "GridBloomfilterTypes";
+	public static final String gridHashFunctionsCounts = "GridHashFunctionsCounts";
+	public static final String gridWorkloads = "GridWorkloads";
+	public static final String resultsFile = "ResultsFile";
+	public static final String resultsFormat = "ResultsFormat";
 }
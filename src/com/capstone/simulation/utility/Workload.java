@@ -0,0 +1,11 @@
+package com.capstone.simulation.utility;
+
+public enum Workload {
+	RandomTraceAndCachePerClient, // Random cache and random requests for every client
+	RandomData, // Random caches, every client requests all the cached blocks
+	RandomTraceRandomClientsData, // Random caches, every client requests the same random blocks
+	TraceDataInAllClients, // Disjoint caches, every client requests all the cached blocks
+	TraceDataInOneClient, // Every client requests the cache of the first client
+	UniqueTraceUniqueClientsData, // Requests no client caches
+	KSequences // Sequences of k blocks
+}